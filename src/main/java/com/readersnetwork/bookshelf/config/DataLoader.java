@@ -1,25 +1,62 @@
 package com.readersnetwork.bookshelf.config;
 
 import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.entity.SeedCheckpoint;
 import com.readersnetwork.bookshelf.repository.BookRepository;
+import com.readersnetwork.bookshelf.repository.SeedCheckpointRepository;
+import com.readersnetwork.bookshelf.service.BookBulkLoader;
+import com.readersnetwork.bookshelf.service.CatalogSnapshot;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Seeds the book catalog on first startup by fetching books from the Google Books API.
  *
  * Strategy:
- * - Runs asynchronously in a background thread so the app starts immediately
- * - Skips seeding entirely if the DB already has books (restart-safe)
+ * - Runs asynchronously in background threads so the app starts immediately
+ * - Resumable: every saved page is checkpointed (seed_checkpoints), and a restart fetches only the
+ *   pages without a checkpoint; a run in which every page was saved (or its query ran out) writes a
+ *   completion row and is not repeated, while pages that still failed after the retries are left
+ *   pending for the next start (state INCOMPLETE).
+ *   A page's checkpoint commits in the same transaction as its books; a "started" row is written
+ *   before the first page, so a crash at any point resumes the run on the next start
+ * - Skips seeding if the DB already has books but no checkpoints (populated some other way)
+ * - Prefers a local catalog snapshot (bookshelf.snapshot.path, see CatalogSnapshot) over the API:
+ *   when the file is present it is imported synchronously at startup, and seeding is marked complete;
+ *   if the import fails, API seeding runs (deduplicating against whatever the import saved)
  * - Skips seeding if disabled via config or if no API key is configured
  * - Iterates 12 subject queries × 25 pages × 40 results = ~10,000 raw results
- * - Deduplicates each book by googleBooksId / ISBN / title+author before saving
- * - 200ms delay between API calls to respect rate limits
+ * - A small pool of fetcher threads calls the API, all drawing from one token-bucket rate limiter
+ *   (bookshelf.seed.rate-per-second, bookshelf.seed.burst); pages are handed out page-major
+ *   (page 0 of every query first), and a query whose page comes back empty is not fetched further.
+ *   A failed call (timeout, 429, 5xx...) is not taken for the end of a query: its page is retried
+ *   after bookshelf.seed.retry-delay-ms, up to bookshelf.seed.max-attempts times
+ * - Fetched pages go through a bounded queue to a single writer thread; a full queue holds the
+ *   fetchers back. The writer hands each page to BookBulkLoader, which deduplicates it in memory
+ *   by googleBooksId / ISBN / title+author and inserts the new books with one JDBC batch
+ * - Progress (pages done and left, books saved, throughput, ETA) is logged periodically and exposed
+ *   at /actuator/seeding; with bookshelf.seed.readiness-wait=true the "seeding" health indicator
+ *   reports OUT_OF_SERVICE until seeding ends, so a readiness group including it waits for the catalog
+ * - On shutdown the fetchers are interrupted and the writer saves what was already fetched
  */
 @Component
 @RequiredArgsConstructor
@@ -27,13 +64,40 @@ import java.util.List;
 public class DataLoader implements CommandLineRunner {
 
     private final BookRepository bookRepository;
+    private final SeedCheckpointRepository seedCheckpointRepository;
     private final GoogleBooksApiClient googleBooksApiClient;
+    private final BookBulkLoader bookBulkLoader;
+    private final CatalogSnapshot catalogSnapshot;
 
     @Value("${bookshelf.seed.enabled:true}")
     private boolean seedEnabled;
 
-    @Value("${bookshelf.seed.delay-ms:200}")
-    private long delayMs;
+    @Value("${bookshelf.snapshot.import-enabled:true}")
+    private boolean snapshotImportEnabled;
+
+    @Value("${bookshelf.seed.fetchers:4}")
+    private int fetcherThreads;
+
+    @Value("${bookshelf.seed.rate-per-second:5}")
+    private double ratePerSecond;
+
+    @Value("${bookshelf.seed.burst:5}")
+    private int burst;
+
+    @Value("${bookshelf.seed.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${bookshelf.seed.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${bookshelf.seed.retry-delay-ms:60000}")
+    private long retryDelayMs;
+
+    @Value("${bookshelf.seed.progress-interval-ms:10000}")
+    private long progressIntervalMs;
+
+    @Value("${bookshelf.seed.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
 
     /**
      * Subject queries used to seed the catalog.
@@ -58,98 +122,370 @@ public class DataLoader implements CommandLineRunner {
     private static final int MAX_RESULTS_PER_PAGE = 40;
     private static final int PAGES_PER_QUERY = 25; // 25 × 40 = 1,000 per subject
 
+    /** Lifecycle of the seeder, as reported by progress(). */
+    public enum State {
+        NOT_STARTED, SKIPPED, RUNNING, COMPLETED, INCOMPLETE, STOPPED
+    }
+
+    /** One API call to make. */
+    private record PageTask(String query, int page) {
+    }
+
+    /** Books returned by one API call. */
+    private record FetchedPage(PageTask task, List<Book> books) {
+    }
+
+    private final Queue<PageTask> pendingPages = new ConcurrentLinkedQueue<>();
+    private final Queue<PageTask> failedPages = new ConcurrentLinkedQueue<>();
+    /** Query -> first page that came back empty (Google has no results from there on). */
+    private final Map<String, Integer> exhaustedFrom = new ConcurrentHashMap<>();
+    private final AtomicInteger pagesFetched = new AtomicInteger();
+    private final AtomicInteger pagesDone = new AtomicInteger();
+    private final AtomicInteger pagesSkipped = new AtomicInteger();
+    private final AtomicInteger booksSaved = new AtomicInteger();
+    private final AtomicInteger booksSkipped = new AtomicInteger();
+
+    private BlockingQueue<FetchedPage> fetchedPages;
+    private volatile ExecutorService fetchers;
+    private Thread writer;
+    private volatile State state = State.NOT_STARTED;
+    private volatile boolean running;
+    private volatile boolean stopping;
+    private volatile boolean fetchingDone;
+    private volatile long startedAt;
+    private int booksSavedBefore;
+
     @Override
     public void run(String... args) {
-        if (bookRepository.count() > 0) {
-            log.info("Book catalog already populated ({} books). Skipping seed.", bookRepository.count());
+        if (seedCheckpointRepository.existsByPage(SeedCheckpoint.COMPLETED)) {
+            log.info("Book catalog seeding already completed. Skipping seed.");
+            state = State.SKIPPED;
             return;
         }
 
+        boolean snapshotFailed = false;
+        if (snapshotImportEnabled && catalogSnapshot.isAvailable()) {
+            if (importSnapshot()) {
+                state = State.COMPLETED;
+                return;
+            }
+            snapshotFailed = true;
+        }
+
+        // After a failed import, books already in the DB are (part of) that import, not another source
+        List<SeedCheckpoint> checkpoints = seedCheckpointRepository.findAll();
+        if (checkpoints.isEmpty() && !snapshotFailed) {
+            long books = bookRepository.count();
+            if (books > 0) {
+                log.info("Book catalog already populated ({} books). Skipping seed.", books);
+                state = State.SKIPPED;
+                return;
+            }
+        }
+
         if (!seedEnabled) {
             log.info("Book seeding is disabled (bookshelf.seed.enabled=false). Skipping.");
+            state = State.SKIPPED;
             return;
         }
 
         if (!googleBooksApiClient.hasApiKey()) {
             log.warn("No Google Books API key configured. Skipping catalog seeding. " +
                      "Set GOOGLE_BOOKS_API_KEY environment variable to enable seeding.");
+            state = State.SKIPPED;
             return;
         }
 
-        log.info("Starting async book catalog seeding from Google Books API...");
-        log.info("Queries: {}, Pages per query: {}, Max results per page: {}",
-                SEED_QUERIES.size(), PAGES_PER_QUERY, MAX_RESULTS_PER_PAGE);
-        log.info("Estimated API calls: {} | Estimated time: ~{} seconds",
-                SEED_QUERIES.size() * PAGES_PER_QUERY,
-                (SEED_QUERIES.size() * PAGES_PER_QUERY * delayMs) / 1000);
+        // Page-major order, without the pages checkpointed by earlier runs
+        Set<PageTask> done = new HashSet<>();
+        for (SeedCheckpoint checkpoint : checkpoints) {
+            done.add(new PageTask(checkpoint.getSeedQuery(), checkpoint.getPage()));
+            booksSavedBefore += checkpoint.getBooksSaved();
+        }
+        for (int page = 0; page < PAGES_PER_QUERY; page++) {
+            for (String query : SEED_QUERIES) {
+                PageTask task = new PageTask(query, page);
+                if (!done.contains(task)) {
+                    pendingPages.add(task);
+                }
+            }
+        }
+        pagesDone.set(PAGES_PER_QUERY * SEED_QUERIES.size() - pendingPages.size());
+        if (checkpoints.isEmpty()) {
+            // From here on, books in the catalog are this seeder's (resumed on the next start)
+            seedCheckpointRepository.save(SeedCheckpoint.builder()
+                    .seedQuery("")
+                    .page(SeedCheckpoint.STARTED)
+                    .booksSaved(0)
+                    .booksSkipped(0)
+                    .build());
+        }
+        state = State.RUNNING;
+
+        log.info(checkpoints.isEmpty()
+                ? "Starting async book catalog seeding from Google Books API..."
+                : "Resuming async book catalog seeding from Google Books API ({} pages already saved)...",
+                pagesDone.get());
+        log.info("Queries: {}, Pages per query: {}, Max results per page: {}, Fetchers: {}",
+                SEED_QUERIES.size(), PAGES_PER_QUERY, MAX_RESULTS_PER_PAGE, fetcherThreads);
+        log.info("Estimated API calls: {} | Estimated time: ~{} seconds at {} calls/s",
+                pendingPages.size(),
+                (long) (pendingPages.size() / ratePerSecond),
+                ratePerSecond);
 
         Thread seedThread = new Thread(this::runSeeding, "book-catalog-seeder");
         seedThread.setDaemon(true);
         seedThread.start();
     }
 
-    private void runSeeding() {
-        int totalSaved = 0;
-        int totalSkipped = 0;
-
-        for (String query : SEED_QUERIES) {
-            log.info("[Seeder] Starting query: '{}' ...", query);
-            int savedForQuery = 0;
+    /**
+     * Load the local snapshot instead of calling the API.
+     *
+     * @return false if the import failed (seeding from the API goes ahead)
+     */
+    private boolean importSnapshot() {
+        try {
+            Map<String, Object> result = catalogSnapshot.importSnapshot();
+            int saved = (int) result.get("saved");
+            seedCheckpointRepository.save(SeedCheckpoint.builder()
+                    .seedQuery("")
+                    .page(SeedCheckpoint.COMPLETED)
+                    .booksSaved(saved)
+                    .booksSkipped((int) result.get("skipped"))
+                    .build());
+            booksSavedBefore = saved;
+            log.info("Book catalog loaded from snapshot {} ({} books in {} ms). Skipping API seed.",
+                    result.get("path"), saved, result.get("millis"));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not import catalog snapshot ({}). Falling back to API seeding.", e.getMessage());
+            return false;
+        }
+    }
 
-            for (int page = 0; page < PAGES_PER_QUERY; page++) {
-                int startIndex = page * MAX_RESULTS_PER_PAGE;
+    @PreDestroy
+    void stop() {
+        stopping = true;
+        if (!running) {
+            return;
+        }
+        running = false;
+        state = State.STOPPED;
+        ExecutorService current = fetchers;
+        if (current != null) {
+            current.shutdownNow();
+        }
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("[Seeder] Stopped on shutdown. Saved {} books; {} fetched pages not saved",
+                booksSaved.get(), fetchedPages.size());
+    }
 
-                try {
-                    List<Book> books = googleBooksApiClient.fetchBooks(query, MAX_RESULTS_PER_PAGE, startIndex);
+    /**
+     * Seeding progress: pages done and left, books saved and skipped, throughput and ETA.
+     * Pages and books saved include earlier (resumed) runs; rates cover this run only.
+     */
+    public Map<String, Object> progress() {
+        double seconds = startedAt != 0 ? Math.max(1e-3, (System.nanoTime() - startedAt) / 1e9) : 0;
+        double pagesPerSecond = seconds > 0 ? pagesFetched.get() / seconds : 0.0;
+        int pagesRemaining = state == State.RUNNING
+                ? pendingPages.size() + (fetchedPages != null ? fetchedPages.size() : 0)
+                : 0;
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", state);
+        progress.put("pagesTotal", PAGES_PER_QUERY * SEED_QUERIES.size());
+        progress.put("pagesDone", pagesDone.get());
+        progress.put("pagesSkipped", pagesSkipped.get());
+        progress.put("pagesFailed", failedPages.size());
+        progress.put("pagesRemaining", pagesRemaining);
+        progress.put("booksSaved", booksSavedBefore + booksSaved.get());
+        progress.put("booksSkipped", booksSkipped.get());
+        progress.put("pagesPerSecond", pagesPerSecond);
+        progress.put("booksPerSecond", seconds > 0 ? booksSaved.get() / seconds : 0.0);
+        progress.put("etaSeconds", pagesRemaining > 0 && pagesPerSecond > 0
+                ? Math.round(pagesRemaining / pagesPerSecond)
+                : null);
+        return progress;
+    }
 
-                    if (books.isEmpty()) {
-                        log.debug("[Seeder] No results for query='{}' page={}. Moving to next query.", query, page);
-                        break; // Google has no more results for this query
-                    }
+    /**
+     * True while a seeding run is in progress.
+     */
+    public boolean isSeeding() {
+        return state == State.RUNNING;
+    }
 
-                    for (Book book : books) {
-                        try {
-                            boolean isDuplicate = bookRepository.findByAnyIdentifier(
-                                    book.getIsbn(),
-                                    book.getGoogleBooksId(),
-                                    null,
-                                    book.getTitle(),
-                                    book.getAuthor()
-                            ).isPresent();
-
-                            if (isDuplicate) {
-                                totalSkipped++;
-                            } else {
-                                bookRepository.save(book);
-                                savedForQuery++;
-                                totalSaved++;
-                            }
-                        } catch (Exception e) {
-                            log.debug("[Seeder] Failed to save book '{}': {}", book.getTitle(), e.getMessage());
-                            totalSkipped++;
-                        }
-                    }
+    // ============================================
+    // PIPELINE
+    // ============================================
 
-                    Thread.sleep(delayMs);
+    private void runSeeding() {
+        if (stopping) {
+            state = State.STOPPED;
+            return;
+        }
+        fetchedPages = new ArrayBlockingQueue<>(queueCapacity);
+        TokenBucket rateLimiter = new TokenBucket(ratePerSecond, burst);
+        AtomicInteger threadIds = new AtomicInteger();
+        writer = new Thread(this::writeLoop, "book-catalog-writer");
+        writer.setDaemon(true);
+        // Everything stop() touches exists before running is published
+        fetchers = newFetcherPool(threadIds);
+        startedAt = System.nanoTime();
+        running = true;
 
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.warn("[Seeder] Seeding interrupted. Saved {} books before interruption.", totalSaved);
-                    return;
-                } catch (Exception e) {
-                    log.warn("[Seeder] Error on query='{}' page={}: {}. Continuing...", query, page, e.getMessage());
+        writer.start();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                if (attempt > 1) {
+                    fetchers = newFetcherPool(threadIds);
+                }
+                for (int i = 0; i < fetcherThreads; i++) {
+                    fetchers.execute(() -> fetchLoop(rateLimiter));
+                }
+                fetchers.shutdown();
+                while (!fetchers.awaitTermination(progressIntervalMs, TimeUnit.MILLISECONDS)) {
+                    logProgress();
+                }
+                if (!running || failedPages.isEmpty() || attempt >= maxAttempts) {
+                    break;
+                }
+                log.info("[Seeder] {} pages failed; retrying them in {} ms (attempt {}/{})",
+                        failedPages.size(), retryDelayMs, attempt + 1, maxAttempts);
+                TimeUnit.MILLISECONDS.sleep(retryDelayMs);
+                PageTask failed;
+                while ((failed = failedPages.poll()) != null) {
+                    pendingPages.add(failed);
                 }
             }
-
-            log.info("[Seeder] Finished query: '{}' — saved {} books (total so far: {})",
-                    query, savedForQuery, totalSaved);
+            fetchingDone = true;
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!running) {
+            return; // stopped on shutdown
+        }
+        running = false;
+        if (failedPages.isEmpty()) {
+            seedCheckpointRepository.save(SeedCheckpoint.builder()
+                    .seedQuery("")
+                    .page(SeedCheckpoint.COMPLETED)
+                    .booksSaved(booksSavedBefore + booksSaved.get())
+                    .booksSkipped(booksSkipped.get())
+                    .build());
+            state = State.COMPLETED;
+        } else {
+            state = State.INCOMPLETE;
         }
 
         log.info("=================================================");
-        log.info("[Seeder] Catalog seeding complete!");
-        log.info("[Seeder] Books saved:   {}", totalSaved);
-        log.info("[Seeder] Books skipped: {} (duplicates or errors)", totalSkipped);
+        if (state == State.COMPLETED) {
+            log.info("[Seeder] Catalog seeding complete in {} s!", (System.nanoTime() - startedAt) / 1_000_000_000);
+        } else {
+            log.warn("[Seeder] Catalog seeding incomplete after {} s: {} pages failed and will be fetched "
+                    + "on the next start", (System.nanoTime() - startedAt) / 1_000_000_000, failedPages.size());
+        }
+        log.info("[Seeder] Pages fetched: {} ({} skipped after a query ran out)",
+                pagesFetched.get(), pagesSkipped.get());
+        log.info("[Seeder] Books saved:   {} ({} in earlier runs)", booksSavedBefore + booksSaved.get(),
+                booksSavedBefore);
+        log.info("[Seeder] Books skipped: {} (duplicates or errors)", booksSkipped.get());
         log.info("[Seeder] Total in DB:   {}", bookRepository.count());
         log.info("=================================================");
     }
+
+    private ExecutorService newFetcherPool(AtomicInteger threadIds) {
+        return Executors.newFixedThreadPool(fetcherThreads, task -> {
+            Thread thread = new Thread(task, "book-catalog-fetcher-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void fetchLoop(TokenBucket rateLimiter) {
+        PageTask task;
+        while (running && (task = pendingPages.poll()) != null) {
+            if (task.page() >= exhaustedFrom.getOrDefault(task.query(), Integer.MAX_VALUE)) {
+                pagesSkipped.incrementAndGet();
+                continue;
+            }
+            try {
+                rateLimiter.acquire();
+                int startIndex = task.page() * MAX_RESULTS_PER_PAGE;
+                List<Book> books = googleBooksApiClient.fetchPage(task.query(), MAX_RESULTS_PER_PAGE, startIndex);
+                pagesFetched.incrementAndGet();
+
+                if (books.isEmpty()) {
+                    log.debug("[Seeder] No results for query='{}' page={}. Skipping its later pages.",
+                            task.query(), task.page());
+                    exhaustedFrom.merge(task.query(), task.page(), Math::min); // no more results from here on
+                    continue;
+                }
+                fetchedPages.put(new FetchedPage(task, books));
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("[Seeder] Error on query='{}' page={}: {}. Will retry.",
+                        task.query(), task.page(), e.getMessage());
+                failedPages.add(task);
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (!fetchingDone || !fetchedPages.isEmpty()) {
+            try {
+                FetchedPage fetched = fetchedPages.poll(200, TimeUnit.MILLISECONDS);
+                if (fetched != null) {
+                    try {
+                        save(fetched);
+                    } catch (RuntimeException e) {
+                        log.error("[Seeder] Could not save query='{}' page={}: {}. Will retry.",
+                                fetched.task().query(), fetched.task().page(), e.getMessage(), e);
+                        failedPages.add(fetched.task()); // not checkpointed: fetched again
+                    }
+                }
+                if (!running && fetchedPages.isEmpty()) {
+                    return; // shutdown: everything fetched so far is saved
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("[Seeder] Writer error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void save(FetchedPage fetched) {
+        // The checkpoint commits with the page's books: a crash never leaves books without one
+        BookBulkLoader.Result result = bookBulkLoader.ingest(fetched.books(),
+                ingested -> seedCheckpointRepository.save(SeedCheckpoint.builder()
+                        .seedQuery(fetched.task().query())
+                        .page(fetched.task().page())
+                        .booksSaved(ingested.saved())
+                        .booksSkipped(ingested.skipped())
+                        .build()));
+        booksSaved.addAndGet(result.saved());
+        booksSkipped.addAndGet(result.skipped());
+        pagesDone.incrementAndGet();
+    }
+
+    private void logProgress() {
+        Map<String, Object> progress = progress();
+        log.info("[Seeder] Progress: {}/{} pages done, {} left | {} books saved, {} skipped | "
+                        + "{} pages/s, {} books/s | ETA {} s",
+                progress.get("pagesDone"), progress.get("pagesTotal"), progress.get("pagesRemaining"),
+                progress.get("booksSaved"), progress.get("booksSkipped"),
+                String.format("%.1f", (double) progress.get("pagesPerSecond")),
+                String.format("%.1f", (double) progress.get("booksPerSecond")),
+                progress.get("etaSeconds"));
+    }
 }
@@ -2,14 +2,21 @@ package com.readersnetwork.bookshelf.config;
 
 import com.readersnetwork.bookshelf.entity.Book;
 import com.readersnetwork.bookshelf.entity.BookSource;
+import com.readersnetwork.bookshelf.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Client for the Google Books API.
@@ -17,8 +24,13 @@ import java.util.List;
  * Responsibilities:
  * - Build API URLs (with or without API key)
  * - Fetch a single book by search query (used by BookService for user searches)
- * - Fetch multiple books with pagination (used by DataLoader for seeding)
+ * - Fetch multiple books with pagination (used by DataLoader for seeding), telling failures apart
+ *   from the end of the results
  * - Map API JSON responses to Book entities
+ * - Remember queries that returned nothing (negative cache), so they are not re-sent on every request:
+ *   zero-result responses and rejected queries (400, 404) for bookshelf.google-books.negative-cache.empty-ttl-ms,
+ *   any other failure (timeouts, 5xx, 401/403 key or quota errors, unreadable responses) only for the
+ *   shorter failure-ttl-ms; least recently used entries are evicted beyond the capacity
  */
 @Component
 @Slf4j
@@ -32,6 +44,30 @@ public class GoogleBooksApiClient {
     @Value("${google.books.api.key:}")
     private String apiKey;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bookshelf.google-books.negative-cache.capacity:10000}")
+    private int negativeCacheCapacity;
+
+    @Value("${bookshelf.google-books.negative-cache.empty-ttl-ms:3600000}")
+    private long emptyResultTtlMs;
+
+    @Value("${bookshelf.google-books.negative-cache.failure-ttl-ms:30000}")
+    private long failureTtlMs;
+
+    // "query|startIndex" -> remembered miss; access-ordered for LRU eviction
+    private final Map<String, Miss> negativeCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Miss> eldest) {
+            return size() > negativeCacheCapacity;
+        }
+    };
+
+    /** A query page with no results (or a failed call), until the System.nanoTime() deadline. */
+    private record Miss(long deadline, boolean failure) {
+    }
+
     // ============================================
     // PUBLIC API
     // ============================================
@@ -55,30 +91,67 @@ public class GoogleBooksApiClient {
      * @param query      search query (e.g. "subject:fiction")
      * @param maxResults number of results to request (max 40, Google's hard limit)
      * @param startIndex pagination offset (0, 40, 80, ...)
-     * @return list of Book entities (may be empty if API returns nothing)
+     * @return list of Book entities (empty if the API returns nothing or the call fails)
      */
     public List<Book> fetchBooks(String query, int maxResults, int startIndex) {
+        try {
+            return fetchPage(query, maxResults, startIndex);
+        } catch (ServiceUnavailableException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Like fetchBooks, but a failed call (or one that failed recently) throws instead of looking
+     * like the end of the results.
+     *
+     * @return list of Book entities (empty only if the API has nothing at this offset)
+     * @throws ServiceUnavailableException if the API could not be reached or refused the call
+     */
+    public List<Book> fetchPage(String query, int maxResults, int startIndex) {
         List<Book> books = new ArrayList<>();
 
+        // A page that was empty for any page size is empty for all of them
+        String cacheKey = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) + '|' + startIndex;
+        Miss miss = knownMiss(cacheKey);
+        if (miss != null) {
+            meterRegistry.counter("bookshelf.google-books.negative-cache.hits").increment();
+            if (miss.failure()) {
+                throw new ServiceUnavailableException("Google Books API failed recently for query '" + query
+                        + "' startIndex=" + startIndex);
+            }
+            return books;
+        }
+
         try {
             String url = buildUrl(query, maxResults, startIndex);
             log.debug("Calling Google Books API: {}", url);
 
             GoogleBooksResponse response = restTemplate.getForObject(url, GoogleBooksResponse.class);
 
-            if (response == null || response.getItems() == null || response.getItems().isEmpty()) {
-                return books;
+            if (response != null && response.getItems() != null) {
+                for (GoogleBooksItem item : response.getItems()) {
+                    Book book = mapToBook(item);
+                    if (book != null) {
+                        books.add(book);
+                    }
+                }
             }
 
-            for (GoogleBooksItem item : response.getItems()) {
-                Book book = mapToBook(item);
-                if (book != null) {
-                    books.add(book);
-                }
+            if (books.isEmpty()) {
+                remember(cacheKey, new Miss(deadline(emptyResultTtlMs), false), emptyResultTtlMs);
             }
 
         } catch (Exception e) {
             log.warn("Google Books API call failed for query='{}' startIndex={}: {}", query, startIndex, e.getMessage());
+            // A rejected query won't get better; anything else (outage, key, quota, bad response) may
+            if (isRejectedQuery(e)) {
+                remember(cacheKey, new Miss(deadline(emptyResultTtlMs), false), emptyResultTtlMs);
+                return new ArrayList<>();
+            }
+            remember(cacheKey, new Miss(deadline(failureTtlMs), true), failureTtlMs);
+            throw new ServiceUnavailableException("Google Books API call failed for query '" + query
+                    + "' startIndex=" + startIndex + ": " + e.getMessage());
         }
 
         return books;
@@ -96,6 +169,38 @@ public class GoogleBooksApiClient {
     // PRIVATE HELPERS
     // ============================================
 
+    private Miss knownMiss(String cacheKey) {
+        synchronized (negativeCache) {
+            Miss miss = negativeCache.get(cacheKey);
+            if (miss == null) {
+                return null;
+            }
+            if (System.nanoTime() - miss.deadline() >= 0) {
+                negativeCache.remove(cacheKey);
+                return null;
+            }
+            return miss;
+        }
+    }
+
+    private void remember(String cacheKey, Miss miss, long ttlMs) {
+        if (ttlMs <= 0) {
+            return;
+        }
+        synchronized (negativeCache) {
+            negativeCache.put(cacheKey, miss);
+        }
+    }
+
+    private static long deadline(long ttlMs) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    private static boolean isRejectedQuery(Exception e) {
+        return e instanceof HttpClientErrorException.BadRequest
+                || e instanceof HttpClientErrorException.NotFound;
+    }
+
     private String buildUrl(String query, int maxResults, int startIndex) {
         String url = BASE_URL
                 + "?q=" + query
@@ -0,0 +1,12 @@
+package com.readersnetwork.bookshelf.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. activity retention).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,24 @@
+package com.readersnetwork.bookshelf.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/seeding: catalog seeding progress (see DataLoader.progress()).
+ */
+@Component
+@Endpoint(id = "seeding")
+@RequiredArgsConstructor
+public class SeedingEndpoint {
+
+    private final DataLoader dataLoader;
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        return dataLoader.progress();
+    }
+}
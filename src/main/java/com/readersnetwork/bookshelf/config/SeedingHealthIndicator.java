@@ -0,0 +1,27 @@
+package com.readersnetwork.bookshelf.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "seeding" health contributor. With bookshelf.seed.readiness-wait=true it is OUT_OF_SERVICE while
+ * the catalog is being seeded; add it to the readiness group to hold traffic until seeding ends.
+ */
+@Component("seeding")
+@RequiredArgsConstructor
+public class SeedingHealthIndicator implements HealthIndicator {
+
+    private final DataLoader dataLoader;
+
+    @Value("${bookshelf.seed.readiness-wait:false}")
+    private boolean readinessWait;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = readinessWait && dataLoader.isSeeding() ? Health.outOfService() : Health.up();
+        return builder.withDetails(dataLoader.progress()).build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.readersnetwork.bookshelf.config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter shared by several threads.
+ *
+ * - Tokens refill continuously at permitsPerSecond, up to burst tokens
+ * - acquire() takes one token, sleeping until one is available; callers are served in no
+ *   particular order, but the overall rate never exceeds the limit (after the initial burst)
+ */
+final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double burst;
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+    }
+
+    void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / permitsPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+    }
+}
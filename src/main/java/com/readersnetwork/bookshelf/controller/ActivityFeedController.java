@@ -0,0 +1,76 @@
+package com.readersnetwork.bookshelf.controller;
+
+import com.readersnetwork.bookshelf.entity.User;
+import com.readersnetwork.bookshelf.service.ActivityStreamBroker;
+import com.readersnetwork.bookshelf.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/feed")
+public class ActivityFeedController {
+
+    @Autowired
+    private ActivityStreamBroker activityStreamBroker;
+
+    @Autowired
+    private UserService userService;
+
+    // ============================================
+    // LIVE STREAM
+    // ============================================
+
+    /**
+     * Live activity stream (Server-Sent Events) of the current user and everyone they follow
+     * GET /api/feed/stream
+     * Reconnecting clients resume with the Last-Event-ID header (or lastEventId parameter);
+     * 429 when the connection limit is reached
+     */
+    @GetMapping("/stream")
+    public SseEmitter stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(required = false) Long lastEventId,
+            HttpServletResponse response) throws IOException {
+        Long userId;
+        try {
+            userId = getCurrentUserId();
+        } catch (RuntimeException e) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Not authenticated");
+            return null;
+        }
+
+        Long resumeFrom = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        Optional<SseEmitter> emitter = activityStreamBroker.subscribe(userId, resumeFrom);
+        if (emitter.isEmpty()) {
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many live stream connections");
+            return null;
+        }
+        return emitter.get();
+    }
+
+    // ============================================
+    // HELPER METHODS
+    // ============================================
+
+    /**
+     * Get current authenticated user ID from security context
+     */
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new RuntimeException("Not authenticated");
+        }
+        String username = authentication.getName();
+        return userService.getUserByUsername(username)
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+}
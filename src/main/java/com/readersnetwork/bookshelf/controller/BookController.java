@@ -1,10 +1,14 @@
 package com.readersnetwork.bookshelf.controller;
 
 import com.readersnetwork.bookshelf.dto.request.BookRequest;
+import com.readersnetwork.bookshelf.dto.response.AutocompleteSuggestion;
 import com.readersnetwork.bookshelf.dto.response.BookResponse;
+import com.readersnetwork.bookshelf.dto.response.FacetedSearchResponse;
 import com.readersnetwork.bookshelf.entity.Book;
 import com.readersnetwork.bookshelf.entity.BookSource;
 import com.readersnetwork.bookshelf.exception.BookNotFoundException;
+import com.readersnetwork.bookshelf.exception.ServiceUnavailableException;
+import com.readersnetwork.bookshelf.service.BookSearchIndex;
 import com.readersnetwork.bookshelf.service.BookService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +45,8 @@ public class BookController {
         try {
             Book book = bookService.searchAndCreateBook(query);
             return ResponseEntity.ok(mapToResponse(book));
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (RuntimeException e) {
             throw new BookNotFoundException("Book not found: " + query);
         }
@@ -65,6 +71,57 @@ public class BookController {
         return ResponseEntity.ok(results);
     }
 
+    /**
+     * Search results with facet counts, optionally narrowed by facet values
+     * GET /api/books/faceted-search?query=dragons&genre=Fantasy&year=2001&language=en&source=GOOGLE_BOOKS
+     * 
+     * facets: { "genre": { "Fantasy": 312, ... }, "year": { "2001": 18, ... }, "language": ..., "source": ... }
+     */
+    @GetMapping("/faceted-search")
+    public ResponseEntity<FacetedSearchResponse> facetedSearch(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) String language,
+            @RequestParam(required = false) BookSource source,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Map<String, String> filters = new HashMap<>();
+        if (genre != null) {
+            filters.put(BookSearchIndex.FACET_GENRE, genre.trim());
+        }
+        if (year != null) {
+            filters.put(BookSearchIndex.FACET_YEAR, year.toString());
+        }
+        if (language != null) {
+            filters.put(BookSearchIndex.FACET_LANGUAGE, language.trim());
+        }
+        if (source != null) {
+            filters.put(BookSearchIndex.FACET_SOURCE, source.name());
+        }
+
+        Pageable pageable = PageRequest.of(page, size);
+        BookSearchIndex.FacetedPage result = bookService.facetedSearch(query, filters, pageable);
+
+        return ResponseEntity.ok(FacetedSearchResponse.builder()
+                .results(result.page().map(this::mapToResponse))
+                .facets(result.facets())
+                .build());
+    }
+
+    /**
+     * Search-as-you-type completions (titles and authors, most reviewed first)
+     * GET /api/books/autocomplete?prefix=harry&limit=10
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<AutocompleteSuggestion>> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(bookService.autocomplete(prefix, Math.min(limit, 10)));
+    }
+
     /**
      * Create a book manually (when not found in APIs)
      * POST /api/books
@@ -184,7 +241,7 @@ public class BookController {
     }
 
     /**
-     * Get books by genre
+     * Get books by genre, most reviewed first (genre name is matched ignoring case and accents)
      * GET /api/books/genre/Fantasy?page=0&size=10
      */
     @GetMapping("/genre/{genre}")
@@ -290,6 +347,36 @@ public class BookController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Rebuild the in-memory search index from the database (admin only)
+     * POST /api/books/search-index/rebuild
+     */
+    @PostMapping("/search-index/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildSearchIndex() {
+        return ResponseEntity.ok(bookService.rebuildSearchIndex());
+    }
+
+    /**
+     * Search index size and latency (admin only)
+     * GET /api/books/search-index/stats
+     */
+    @GetMapping("/search-index/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        return ResponseEntity.ok(bookService.getSearchIndexStats());
+    }
+
+    /**
+     * Export the catalog to the binary snapshot file loaded at startup by fresh environments (admin only)
+     * POST /api/books/snapshot/export
+     */
+    @PostMapping("/snapshot/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> exportCatalogSnapshot() {
+        return ResponseEntity.ok(bookService.exportCatalogSnapshot());
+    }
+
     /**
      * Get all books (paginated, admin only)
      * GET /api/books?page=0&size=20
@@ -1,5 +1,6 @@
 package com.readersnetwork.bookshelf.controller;
 
+import com.readersnetwork.bookshelf.dto.response.MentionSuggestion;
 import com.readersnetwork.bookshelf.dto.response.UserResponse;
 import com.readersnetwork.bookshelf.entity.User;
 import com.readersnetwork.bookshelf.service.UserService;
@@ -175,6 +176,24 @@ public class UserController {
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * Mention autocomplete while typing "@jo" (people you follow first)
+     * GET /api/users/mentions?prefix=jo&limit=10
+     */
+    @GetMapping("/mentions")
+    public ResponseEntity<List<MentionSuggestion>> suggestMentions(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        Long currentUserId;
+        try {
+            currentUserId = getCurrentUserId();
+        } catch (RuntimeException e) {
+            currentUserId = null;
+        }
+        return ResponseEntity.ok(userService.suggestMentions(currentUserId, prefix, Math.min(limit, 20)));
+    }
+
     // ============================================
     // FOLLOW SYSTEM
     // ============================================
@@ -0,0 +1,32 @@
+package com.readersnetwork.bookshelf.dto.response;
+
+import com.readersnetwork.bookshelf.entity.ActivityType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityStreamEvent {
+
+    private Long id;
+
+    private Long userId;
+
+    private ActivityType activityType;
+
+    private Long targetId;
+
+    private String targetType;
+
+    private Long bookId;
+
+    private Integer rating;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.readersnetwork.bookshelf.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AutocompleteSuggestion {
+
+    private String text;
+
+    // TITLE or AUTHOR
+    private String type;
+
+    // Set for titles only
+    private Long bookId;
+
+    private Long reviewCount;
+}
@@ -0,0 +1,21 @@
+package com.readersnetwork.bookshelf.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetedSearchResponse {
+
+    private Page<BookResponse> results;
+
+    // facet (genre, year, language, source) -> value -> number of matching books
+    private Map<String, Map<String, Integer>> facets;
+}
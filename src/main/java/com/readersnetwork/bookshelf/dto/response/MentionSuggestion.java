@@ -0,0 +1,21 @@
+package com.readersnetwork.bookshelf.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MentionSuggestion {
+
+    private Long id;
+
+    private String username;
+
+    private String displayName;
+
+    private String avatarUrl;
+}
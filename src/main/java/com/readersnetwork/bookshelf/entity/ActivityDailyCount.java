@@ -0,0 +1,38 @@
+package com.readersnetwork.bookshelf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Daily rollup of activity_feed: number of activities per user, day and activity type.
+ * Maintained on insert so statistics never scan the feed itself.
+ */
+@Entity
+@Table(name = "activity_daily_counts", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "user_id", "activity_date", "activity_type" })
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ActivityDailyCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "activity_type", nullable = false, length = 50)
+    private ActivityType activityType;
+
+    @Column(name = "activity_count", nullable = false)
+    private long activityCount;
+}
@@ -35,8 +35,16 @@ public class ActivityFeed {
     @Column(name = "target_type", length = 50)
     private String targetType; // "REVIEW", "BOOK", "USER"
 
+    // Typed metadata, readable without JSON parsing:
+    // bookId - BOOK targets, POSTED_REVIEW and bookshelf activities; rating - POSTED_REVIEW
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "rating")
+    private Integer rating;
+
     @Column(length = 1000)
-    private String metadata; // JSON string for extra info
+    private String metadata; // JSON string for any other extra info
 
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
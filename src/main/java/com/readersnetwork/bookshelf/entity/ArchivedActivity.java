@@ -0,0 +1,51 @@
+package com.readersnetwork.bookshelf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cold tier of the activity feed: activities moved out of activity_feed once they are older
+ * than the hot window. Same columns and ids as {@link ActivityFeed}, with the user kept as a
+ * plain id; rows are append-only.
+ */
+@Entity
+@Table(name = "activity_feed_archive", indexes = {
+        @Index(name = "idx_archive_user_created", columnList = "user_id,created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedActivity {
+
+    // Same id as the original activity_feed row
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "activity_type", nullable = false, length = 50)
+    private ActivityType activityType;
+
+    @Column(name = "target_id")
+    private Long targetId;
+
+    @Column(name = "target_type", length = 50)
+    private String targetType;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "rating")
+    private Integer rating;
+
+    @Column(length = 1000)
+    private String metadata;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
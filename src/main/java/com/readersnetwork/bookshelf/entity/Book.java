@@ -90,4 +90,12 @@ public class Book {
     @Builder.Default
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<BookshelfBook> bookshelfBooks = new HashSet<>();
+
+    // Dictionary genres parsed from the genre text above (kept for display)
+    @Builder.Default
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "book_genres",
+            joinColumns = @JoinColumn(name = "book_id"),
+            inverseJoinColumns = @JoinColumn(name = "genre_id"))
+    private Set<Genre> genres = new HashSet<>();
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.readersnetwork.bookshelf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "book_identifiers", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_identifier_value_type", columnNames = { "id_value", "id_type" })
+}, indexes = {
+        @Index(name = "idx_identifier_book", columnList = "book_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookIdentifier {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "id_type", nullable = false, length = 20)
+    private IdentifierType type;
+
+    // Canonical value: ISBN-13 digits, external id, or title+author fingerprint (SHA-256 hex)
+    @Column(name = "id_value", nullable = false, length = 64)
+    private String value;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+}
@@ -0,0 +1,25 @@
+package com.readersnetwork.bookshelf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "genres")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Genre {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Display name, as first entered (e.g., "Science Fiction")
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    // Lookup key: lower-cased, accent-free words (e.g., "science fiction")
+    @Column(nullable = false, unique = true, length = 100)
+    private String slug;
+}
@@ -0,0 +1,10 @@
+package com.readersnetwork.bookshelf.entity;
+
+// Kind of canonical book identifier (see BookIdentifier)
+public enum IdentifierType {
+    ISBN_13,
+    ISBN_RAW, // isbn values that are not a valid ISBN-10/13, trimmed
+    GOOGLE_BOOKS,
+    OPEN_LIBRARY,
+    TITLE_AUTHOR
+}
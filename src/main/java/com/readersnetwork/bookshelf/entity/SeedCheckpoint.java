@@ -0,0 +1,46 @@
+package com.readersnetwork.bookshelf.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "seed_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "seed_query", "page" })
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeedCheckpoint {
+
+    // Page number of the row written when a whole seeding run has finished
+    public static final int COMPLETED = -1;
+
+    // Page number of the row written before the first page of the first run
+    public static final int STARTED = -2;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Seed query (e.g., "subject:fantasy"), empty for the completion row
+    @Column(name = "seed_query", nullable = false, length = 100)
+    private String seedQuery;
+
+    // Page of the query that has been saved, or COMPLETED
+    @Column(nullable = false)
+    private Integer page;
+
+    @Column(name = "books_saved", nullable = false)
+    private Integer booksSaved;
+
+    @Column(name = "books_skipped", nullable = false)
+    private Integer booksSkipped;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package com.readersnetwork.bookshelf.repository;
+
+import com.readersnetwork.bookshelf.entity.ActivityDailyCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ActivityDailyCountRepository extends JpaRepository<ActivityDailyCount, Long> {
+
+    // (activityType, all-time count, count since a day) for one user, one row per type
+    @Query("SELECT r.activityType, SUM(r.activityCount), " +
+            "SUM(CASE WHEN r.activityDate >= :since THEN r.activityCount ELSE 0 END) " +
+            "FROM ActivityDailyCount r WHERE r.userId = :userId GROUP BY r.activityType")
+    List<Object[]> sumByTypeForUser(@Param("userId") Long userId, @Param("since") LocalDate since);
+
+    // Drop rollups of days whose activities were purged
+    @Modifying
+    @Query("DELETE FROM ActivityDailyCount r WHERE r.activityDate < :before")
+    int deleteByActivityDateBefore(@Param("before") LocalDate before);
+}
@@ -5,11 +5,13 @@ import com.readersnetwork.bookshelf.entity.ActivityType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,27 +23,112 @@ public interface ActivityFeedRepository extends JpaRepository<ActivityFeed, Long
     // Get activities by type
     Page<ActivityFeed> findByActivityTypeOrderByCreatedAtDesc(ActivityType type, Pageable pageable);
 
-    // Get feed for a user (activities from users they follow)
+    // Get feed for a user (activities from users they follow), newest id first like the home timeline
     @Query("SELECT a FROM ActivityFeed a WHERE a.user.id IN " +
             "(SELECT uf.following.id FROM UserFollow uf WHERE uf.follower.id = :userId) " +
-            "ORDER BY a.createdAt DESC")
+            "ORDER BY a.id DESC")
     Page<ActivityFeed> findFeedForUser(@Param("userId") Long userId, Pageable pageable);
 
-    // Get combined feed (user's own + following)
+    // Get combined feed (user's own + following), newest id first like the home timeline
     @Query("SELECT a FROM ActivityFeed a WHERE a.user.id = :userId " +
             "OR a.user.id IN (SELECT uf.following.id FROM UserFollow uf WHERE uf.follower.id = :userId) " +
-            "ORDER BY a.createdAt DESC")
+            "ORDER BY a.id DESC")
     Page<ActivityFeed> findCombinedFeed(@Param("userId") Long userId, Pageable pageable);
 
+    // Newest (id, authorId) pairs of the combined feed, used to materialize a home timeline
+    @Query("SELECT a.id, a.user.id FROM ActivityFeed a WHERE a.user.id = :userId " +
+            "OR a.user.id IN (SELECT uf.following.id FROM UserFollow uf WHERE uf.follower.id = :userId) " +
+            "ORDER BY a.id DESC")
+    List<Object[]> findCombinedFeedEntries(@Param("userId") Long userId, Pageable pageable);
+
+    // Count of the combined feed (user's own + following)
+    @Query("SELECT COUNT(a) FROM ActivityFeed a WHERE a.user.id = :userId " +
+            "OR a.user.id IN (SELECT uf.following.id FROM UserFollow uf WHERE uf.follower.id = :userId)")
+    long countCombinedFeed(@Param("userId") Long userId);
+
+    // Activities of pull-mode authors created after a timeline was materialized (no count query)
+    List<ActivityFeed> findByUserIdInAndIdGreaterThanOrderByIdDesc(Collection<Long> userIds, Long afterId,
+            Pageable pageable);
+
+    // Count of the above, only needed when a read fills the whole window
+    long countByUserIdInAndIdGreaterThan(Collection<Long> userIds, Long afterId);
+
+    // Activities of the given authors after an id, without a count query (live stream resume)
+    List<ActivityFeed> findByUserIdInAndIdGreaterThan(Collection<Long> userIds, Long afterId, Pageable pageable);
+
+    // ============================================
+    // KEYSET (SEEK) PAGINATION - no OFFSET, no COUNT
+    // Rows strictly older than the (createdAt, id) cursor
+    // ============================================
+
+    @Query("SELECT a FROM ActivityFeed a WHERE a.user.id = :userId " +
+            "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityFeed> findUserActivitiesBefore(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT a FROM ActivityFeed a WHERE a.user.id IN " +
+            "(SELECT uf.following.id FROM UserFollow uf WHERE uf.follower.id = :userId) " +
+            "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityFeed> findFeedForUserBefore(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT a FROM ActivityFeed a WHERE (a.user.id = :userId " +
+            "OR a.user.id IN (SELECT uf.following.id FROM UserFollow uf WHERE uf.follower.id = :userId)) " +
+            "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityFeed> findCombinedFeedBefore(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
     // Get activities in date range
     @Query("SELECT a FROM ActivityFeed a WHERE a.createdAt BETWEEN :start AND :end " +
             "ORDER BY a.createdAt DESC")
     List<ActivityFeed> findActivitiesInDateRange(@Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
 
+    // Book-related signals since a point in time (bookId, createdAt)
+    // Used to rebuild the in-memory trending counters without loading entities
+    @Query("SELECT a.bookId, a.createdAt FROM ActivityFeed a " +
+            "WHERE a.createdAt >= :since AND a.bookId IS NOT NULL AND a.targetType IN ('BOOK', 'REVIEW')")
+    List<Object[]> findBookSignalsSince(@Param("since") LocalDateTime since);
+
+    // ============================================
+    // METADATA BACKFILL (JSON -> typed columns)
+    // ============================================
+
+    // Rows whose JSON metadata still carries typed fields, scanned in id order
+    @Query("SELECT a FROM ActivityFeed a WHERE a.id > :afterId AND a.metadata IS NOT NULL " +
+            "AND (a.metadata LIKE '%\"bookId\"%' OR a.metadata LIKE '%\"rating\"%') ORDER BY a.id ASC")
+    List<ActivityFeed> findWithUntypedMetadata(@Param("afterId") Long afterId, Pageable pageable);
+
+    // BOOK targets are their own book
+    @Modifying
+    @Query("UPDATE ActivityFeed a SET a.bookId = a.targetId WHERE a.targetType = 'BOOK' AND a.bookId IS NULL")
+    int backfillBookTargets();
+
+    // (userId, createdAt) of every activity since a point in time
+    // Used to rebuild the in-memory most-active-users summary without loading entities
+    @Query("SELECT a.user.id, a.createdAt FROM ActivityFeed a WHERE a.createdAt >= :since")
+    List<Object[]> findActorsSince(@Param("since") LocalDateTime since);
+
     // Count activities by user
     long countByUserId(Long userId);
 
+    // ============================================
+    // RETENTION - bulk deletes in id-range chunks
+    // ============================================
+
+    // Id range (min, max) of activities older than the cutoff
+    @Query("SELECT MIN(a.id), MAX(a.id) FROM ActivityFeed a WHERE a.createdAt < :cutoff")
+    List<Object[]> findIdRangeCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Delete one id-range chunk of activities older than the cutoff
+    @Modifying
+    @Query("DELETE FROM ActivityFeed a WHERE a.id >= :fromId AND a.id < :toId AND a.createdAt < :cutoff")
+    int deleteChunkCreatedBefore(@Param("fromId") Long fromId, @Param("toId") Long toId,
+            @Param("cutoff") LocalDateTime cutoff);
+
     // Get recent activities (last N days)
     @Query("SELECT a FROM ActivityFeed a WHERE a.user.id = :userId " +
             "AND a.createdAt >= :since ORDER BY a.createdAt DESC")
@@ -0,0 +1,54 @@
+package com.readersnetwork.bookshelf.repository;
+
+import com.readersnetwork.bookshelf.entity.ArchivedActivity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedActivityRepository extends JpaRepository<ArchivedActivity, Long> {
+
+    // User's archived activities, newest first (offset paging)
+    @Query("SELECT a FROM ArchivedActivity a WHERE a.userId = :userId ORDER BY a.createdAt DESC, a.id DESC")
+    List<ArchivedActivity> findUserActivities(@Param("userId") Long userId, Pageable pageable);
+
+    // User's archived activities strictly older than the (createdAt, id) cursor (keyset paging)
+    @Query("SELECT a FROM ArchivedActivity a WHERE a.userId = :userId " +
+            "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ArchivedActivity> findUserActivitiesBefore(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    // ============================================
+    // TIERING - copy one id-range chunk out of the hot table
+    // ============================================
+
+    @Modifying
+    @Query("INSERT INTO ArchivedActivity (id, userId, activityType, targetId, targetType, bookId, rating, " +
+            "metadata, createdAt) " +
+            "SELECT a.id, a.user.id, a.activityType, a.targetId, a.targetType, a.bookId, a.rating, " +
+            "a.metadata, a.createdAt FROM ActivityFeed a " +
+            "WHERE a.id >= :fromId AND a.id < :toId AND a.createdAt < :cutoff")
+    int copyChunkCreatedBefore(@Param("fromId") Long fromId, @Param("toId") Long toId,
+            @Param("cutoff") LocalDateTime cutoff);
+
+    // ============================================
+    // RETENTION - bulk deletes in id-range chunks
+    // ============================================
+
+    @Query("SELECT MIN(a.id), MAX(a.id) FROM ArchivedActivity a WHERE a.createdAt < :cutoff")
+    List<Object[]> findIdRangeCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedActivity a WHERE a.id >= :fromId AND a.id < :toId AND a.createdAt < :cutoff")
+    int deleteChunkCreatedBefore(@Param("fromId") Long fromId, @Param("toId") Long toId,
+            @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,22 @@
+package com.readersnetwork.bookshelf.repository;
+
+import com.readersnetwork.bookshelf.entity.BookIdentifier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookIdentifierRepository extends JpaRepository<BookIdentifier, Long> {
+
+    // Point lookups on the (value, type) unique index; callers filter by type
+    List<BookIdentifier> findByValueIn(Collection<String> values);
+
+    @Modifying
+    @Query("DELETE FROM BookIdentifier bi WHERE bi.bookId = :bookId")
+    void deleteByBookId(@Param("bookId") Long bookId);
+}
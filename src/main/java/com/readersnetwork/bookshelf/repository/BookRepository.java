@@ -30,18 +30,6 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByTitleAndAuthor(@Param("title") String title,
             @Param("author") String author);
 
-    // Check if book exists by any identifier (use this before saving!)
-    @Query("SELECT b FROM Book b WHERE b.isbn = :isbn " +
-            "OR b.googleBooksId = :googleBooksId " +
-            "OR b.openLibraryId = :openLibraryId " +
-            "OR (LOWER(TRIM(b.title)) = LOWER(TRIM(:title)) " +
-            "AND LOWER(TRIM(b.author)) = LOWER(TRIM(:author)))")
-    Optional<Book> findByAnyIdentifier(@Param("isbn") String isbn,
-            @Param("googleBooksId") String googleBooksId,
-            @Param("openLibraryId") String openLibraryId,
-            @Param("title") String title,
-            @Param("author") String author);
-
     // ============================================
     // SEARCH & DISCOVERY
     // ============================================
@@ -50,9 +38,10 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     List<Book> findByAuthorContainingIgnoreCase(String author);
 
-    List<Book> findByGenre(String genre);
-
-    Page<Book> findByGenre(String genre, Pageable pageable);
+    // Books in a dictionary genre, most reviewed first
+    @Query(value = "SELECT b FROM Book b JOIN b.genres g WHERE g.slug = :slug ORDER BY SIZE(b.reviews) DESC, b.id",
+            countQuery = "SELECT COUNT(b) FROM Book b JOIN b.genres g WHERE g.slug = :slug")
+    Page<Book> findByGenreSlug(@Param("slug") String slug, Pageable pageable);
 
     // Search books by title, author, or genre (fuzzy search)
     @Query("SELECT b FROM Book b WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) " +
@@ -64,11 +53,12 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b FROM Book b WHERE " +
             "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
             "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
-            "(:genre IS NULL OR LOWER(b.genre) LIKE LOWER(CONCAT('%', :genre, '%'))) AND " +
+            "(:genreSlug IS NULL OR :genreSlug IN " +
+            "(SELECT g.slug FROM Book b2 JOIN b2.genres g WHERE b2.id = b.id)) AND " +
             "(:year IS NULL OR b.publishedYear = :year)")
     Page<Book> advancedSearch(@Param("title") String title,
             @Param("author") String author,
-            @Param("genre") String genre,
+            @Param("genreSlug") String genreSlug,
             @Param("year") Integer year,
             Pageable pageable);
 
@@ -97,6 +87,11 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findTrendingBooks(@Param("since") java.time.LocalDateTime since,
             Pageable pageable);
 
+    // Title, author and review count of every book (autocomplete weights)
+    @Query("SELECT b.id, b.title, b.author, COUNT(r) FROM Book b LEFT JOIN b.reviews r " +
+            "GROUP BY b.id, b.title, b.author")
+    List<Object[]> findTitleAuthorReviewCounts();
+
     // ============================================
     // VALIDATION & ADMIN
     // ============================================
@@ -105,6 +100,10 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     boolean existsByGoogleBooksId(String googleBooksId);
 
+    // Books with genre text but no dictionary genres yet (added before the dictionary), by id
+    @Query("SELECT b FROM Book b WHERE b.genre IS NOT NULL AND b.genres IS EMPTY AND b.id > :afterId ORDER BY b.id")
+    List<Book> findWithUnlinkedGenres(@Param("afterId") Long afterId, Pageable pageable);
+
     // Count books by source (for admin dashboard)
     long countBySource(com.readersnetwork.bookshelf.entity.BookSource source);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.readersnetwork.bookshelf.repository;
+
+import com.readersnetwork.bookshelf.entity.DataMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, Long> {
+
+    boolean existsByName(String name);
+}
@@ -0,0 +1,13 @@
+package com.readersnetwork.bookshelf.repository;
+
+import com.readersnetwork.bookshelf.entity.Genre;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GenreRepository extends JpaRepository<Genre, Long> {
+
+    Optional<Genre> findBySlug(String slug);
+}
@@ -42,6 +42,10 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.book.id = :bookId")
     Double findAverageRatingForBook(@Param("bookId") Long bookId);
 
+    // Review count and average rating per book (search ranking tie-breakers)
+    @Query("SELECT r.book.id, COUNT(r), AVG(r.rating) FROM Review r GROUP BY r.book.id")
+    List<Object[]> findReviewStatsByBook();
+
     // Count reviews for a book
     long countByBookId(Long bookId);
 
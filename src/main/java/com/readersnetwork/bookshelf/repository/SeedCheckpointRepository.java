@@ -0,0 +1,11 @@
+package com.readersnetwork.bookshelf.repository;
+
+import com.readersnetwork.bookshelf.entity.SeedCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SeedCheckpointRepository extends JpaRepository<SeedCheckpoint, Long> {
+
+    boolean existsByPage(Integer page);
+}
@@ -29,6 +29,14 @@ public interface UserFollowRepository extends JpaRepository<UserFollow, Long> {
     @Query("SELECT uf.follower FROM UserFollow uf WHERE uf.following.id = :userId")
     Page<User> findFollowers(@Param("userId") Long userId, Pageable pageable);
 
+    // Ids of all users that follow a user (activity fan-out)
+    @Query("SELECT uf.follower.id FROM UserFollow uf WHERE uf.following.id = :userId")
+    List<Long> findFollowerIds(@Param("userId") Long userId);
+
+    // Ids of all users that a user follows
+    @Query("SELECT uf.following.id FROM UserFollow uf WHERE uf.follower.id = :userId")
+    List<Long> findFollowingIds(@Param("userId") Long userId);
+
     // Count followers
     long countByFollowingId(Long userId);
 
@@ -22,8 +22,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
-    List<User> findByUsernameContainingIgnoreCase(String username);
-
     // Find users by favorite genre
     @Query("SELECT u FROM User u WHERE u.favoriteGenres LIKE %:genre%")
     List<User> findByFavoriteGenre(@Param("genre") String genre);
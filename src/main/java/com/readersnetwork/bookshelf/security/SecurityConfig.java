@@ -1,5 +1,6 @@
 package com.readersnetwork.bookshelf.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -51,6 +52,9 @@ public class SecurityConfig {
                                 "/error" // Error page
                         ).permitAll()
 
+                        // Async re-dispatches of already authorized requests (live activity stream)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // All other endpoints require authentication
                         .anyRequest().authenticated())
 
@@ -0,0 +1,131 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.repository.ActivityFeedRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Streaming leaderboard of the most active users over a sliding window of days.
+ *
+ * Strategy:
+ * - One Space-Saving summary per day, kept in a ring covering the window (default 30 days)
+ * - Every new activity is offered to the current day's summary
+ * - Top-N merges the daily summaries (at most window x counters entries), so the cost
+ *   depends on the counter budget, never on how much activity there is
+ * - bookshelf.active-users.counters is the accuracy/memory knob: any user with more than
+ *   1/counters of a day's activity is always tracked; counts may overestimate by the
+ *   reported error bound
+ * - Rebuilt from the activity_feed table once at startup
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActiveUsersTracker {
+
+    private final ActivityFeedRepository activityFeedRepository;
+
+    @Value("${bookshelf.active-users.window-days:30}")
+    private int windowDays;
+
+    @Value("${bookshelf.active-users.counters:1000}")
+    private int counters;
+
+    private SpaceSavingSummary[] days;
+    private long[] dayNumbers;
+
+    public record UserCount(long userId, long count, long maxError) {
+    }
+
+    // Most active first, ties broken by user id
+    private static final Comparator<UserCount> RANKING = Comparator
+            .comparingLong(UserCount::count).reversed()
+            .thenComparingLong(UserCount::userId);
+
+    @PostConstruct
+    void rebuild() {
+        days = new SpaceSavingSummary[windowDays];
+        dayNumbers = new long[windowDays];
+        for (int i = 0; i < windowDays; i++) {
+            days[i] = new SpaceSavingSummary(counters);
+            dayNumbers[i] = Long.MIN_VALUE;
+        }
+
+        LocalDateTime since = LocalDate.now().minusDays(windowDays - 1L).atStartOfDay();
+        int activities = 0;
+        for (Object[] row : activityFeedRepository.findActorsSince(since)) {
+            record((Long) row[0], (LocalDateTime) row[1]);
+            activities++;
+        }
+        log.info("Most-active-users summary rebuilt from {} activities ({} days x {} counters)",
+                activities, windowDays, counters);
+    }
+
+    // ============================================
+    // PUBLIC API
+    // ============================================
+
+    /**
+     * Count one activity by a user at the given time.
+     */
+    public synchronized void record(long userId, LocalDateTime at) {
+        long today = LocalDate.now().toEpochDay();
+        long day = at != null ? Math.min(at.toLocalDate().toEpochDay(), today) : today;
+        if (day <= today - windowDays) {
+            return; // already outside the window
+        }
+
+        int slot = (int) Math.floorMod(day, (long) windowDays);
+        if (dayNumbers[slot] != day) {
+            days[slot].clear();
+            dayNumbers[slot] = day;
+        }
+        days[slot].offer(userId);
+    }
+
+    /**
+     * Users with the most activity in the window, most active first.
+     * Counts are estimates (never lower than the true count).
+     */
+    public synchronized List<UserCount> topUsers(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        long oldest = LocalDate.now().toEpochDay() - windowDays;
+        LongCountMap estimates = new LongCountMap(counters);
+        LongCountMap errors = new LongCountMap(counters);
+        for (int slot = 0; slot < windowDays; slot++) {
+            if (dayNumbers[slot] <= oldest) {
+                continue; // expired or unused
+            }
+            days[slot].forEach((userId, count, error) -> {
+                estimates.add(userId, count);
+                errors.add(userId, error);
+            });
+        }
+
+        PriorityQueue<UserCount> heap = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        estimates.forEach((userId, count) -> {
+            if (heap.size() < limit) {
+                heap.add(new UserCount(userId, count, errors.get(userId)));
+            } else if (count > heap.peek().count()) {
+                heap.poll();
+                heap.add(new UserCount(userId, count, errors.get(userId)));
+            }
+        });
+
+        List<UserCount> result = new ArrayList<>(heap);
+        result.sort(RANKING);
+        return result;
+    }
+}
@@ -0,0 +1,124 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.ActivityType;
+import com.readersnetwork.bookshelf.repository.ActivityDailyCountRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the activity_daily_counts rollup (user x day x activity type).
+ *
+ * - Counts are added with one batched UPDATE; only keys without a row yet are INSERTed
+ * - The batch writer applies a whole batch inside its own insert transaction;
+ *   single activities are applied right after their transaction commits
+ * - A concurrent first insert of the same key is resolved by retrying as an update
+ * - Built from activity_feed with one grouped INSERT ... SELECT when the table is empty at startup
+ */
+@Component
+@Slf4j
+public class ActivityDailyRollup {
+
+    private static final String UPDATE_SQL = "UPDATE activity_daily_counts SET activity_count = activity_count + ? "
+            + "WHERE user_id = ? AND activity_date = ? AND activity_type = ?";
+    private static final String INSERT_SQL = "INSERT INTO activity_daily_counts "
+            + "(activity_count, user_id, activity_date, activity_type) VALUES (?, ?, ?, ?)";
+    private static final String REBUILD_SQL = "INSERT INTO activity_daily_counts "
+            + "(user_id, activity_date, activity_type, activity_count) "
+            + "SELECT user_id, CAST(created_at AS DATE), activity_type, COUNT(*) FROM activity_feed "
+            + "GROUP BY user_id, CAST(created_at AS DATE), activity_type";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityDailyCountRepository activityDailyCountRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /** One rollup cell. */
+    public record Key(long userId, LocalDate day, ActivityType activityType) {
+    }
+
+    public ActivityDailyRollup(JdbcTemplate jdbcTemplate,
+            ActivityDailyCountRepository activityDailyCountRepository,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.activityDailyCountRepository = activityDailyCountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void rebuildIfEmpty() {
+        if (activityDailyCountRepository.count() > 0) {
+            return;
+        }
+        Integer rows = transactionTemplate.execute(status -> jdbcTemplate.update(REBUILD_SQL));
+        if (rows != null && rows > 0) {
+            log.info("Activity daily rollup built: {} rows", rows);
+        }
+    }
+
+    // ============================================
+    // WRITE PATH
+    // ============================================
+
+    /**
+     * Count one activity once the surrounding transaction commits (or immediately if there is none).
+     */
+    public void recordAfterCommit(long userId, LocalDate day, ActivityType activityType) {
+        Map<Key, Long> delta = Map.of(new Key(userId, day, activityType), 1L);
+        Runnable apply = () -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(delta));
+            } catch (DataIntegrityViolationException e) {
+                // Another writer created the row first; it exists now
+                transactionTemplate.executeWithoutResult(status -> apply(delta));
+            }
+        };
+        AfterCommit.run(apply);
+    }
+
+    /**
+     * Add counts in the current transaction.
+     */
+    public void apply(Map<Key, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((key, count) -> args.add(new Object[] {
+                count, key.userId(), Date.valueOf(key.day()), key.activityType().name() }));
+
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(args.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, missing);
+        }
+    }
+
+    /**
+     * Group activities into rollup deltas.
+     */
+    public static Map<Key, Long> deltas(List<Key> keys) {
+        Map<Key, Long> deltas = new HashMap<>();
+        for (Key key : keys) {
+            deltas.merge(key, 1L, Long::sum);
+        }
+        return deltas;
+    }
+}
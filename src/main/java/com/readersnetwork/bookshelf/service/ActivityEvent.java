@@ -0,0 +1,50 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.ActivityType;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * An activity to be written to the feed, referencing users and targets by id only.
+ * Published by the domain services and persisted asynchronously by {@link ActivityIngestionPipeline}.
+ *
+ * @param metadata extra info stored as JSON (may be null)
+ */
+public record ActivityEvent(
+        long userId,
+        ActivityType activityType,
+        Long targetId,
+        String targetType,
+        Long bookId,
+        Integer rating,
+        Map<String, Object> metadata,
+        LocalDateTime createdAt) {
+
+    static final String TARGET_TYPE_BOOK = "BOOK";
+    static final String TARGET_TYPE_REVIEW = "REVIEW";
+    static final String TARGET_TYPE_USER = "USER";
+
+    public static ActivityEvent postedReview(long userId, long reviewId, long bookId, Integer rating) {
+        return new ActivityEvent(userId, ActivityType.POSTED_REVIEW, reviewId, TARGET_TYPE_REVIEW,
+                bookId, rating, null, LocalDateTime.now());
+    }
+
+    public static ActivityEvent likedReview(long userId, long reviewId, long bookId) {
+        return new ActivityEvent(userId, ActivityType.LIKED_REVIEW, reviewId, TARGET_TYPE_REVIEW,
+                bookId, null, null, LocalDateTime.now());
+    }
+
+    public static ActivityEvent followedUser(long followerId, long followingId) {
+        return new ActivityEvent(followerId, ActivityType.FOLLOWED_USER, followingId, TARGET_TYPE_USER,
+                null, null, null, LocalDateTime.now());
+    }
+
+    /**
+     * BOOK and REVIEW activities count towards their book's trending score
+     */
+    boolean countsForTrending() {
+        return bookId != null
+                && (TARGET_TYPE_BOOK.equals(targetType) || TARGET_TYPE_REVIEW.equals(targetType));
+    }
+}
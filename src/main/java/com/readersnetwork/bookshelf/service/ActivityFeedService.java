@@ -1,16 +1,21 @@
 package com.readersnetwork.bookshelf.service;
 
 import com.readersnetwork.bookshelf.entity.*;
+import com.readersnetwork.bookshelf.repository.ActivityDailyCountRepository;
 import com.readersnetwork.bookshelf.repository.ActivityFeedRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.readersnetwork.bookshelf.repository.ArchivedActivityRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,7 +29,29 @@ public class ActivityFeedService {
     @Autowired
     private UserService userService;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private HomeTimelineStore homeTimelineStore;
+
+    @Autowired
+    private ActivityStreamBroker activityStreamBroker;
+
+    @Autowired
+    private ActivityDailyRollup activityDailyRollup;
+
+    @Autowired
+    private ActivityDailyCountRepository activityDailyCountRepository;
+
+    @Autowired
+    private ArchivedActivityRepository archivedActivityRepository;
+
+    @Autowired
+    private TrendingBooksTracker trendingBooksTracker;
+
+    @Autowired
+    private ActiveUsersTracker activeUsersTracker;
+
+    @Autowired
+    private ActivityRetentionJob activityRetentionJob;
 
     // Target type constants
     private static final String TARGET_TYPE_BOOK = "BOOK";
@@ -32,6 +59,9 @@ public class ActivityFeedService {
     private static final String TARGET_TYPE_USER = "USER";
     private static final String TARGET_TYPE_BOOKSHELF = "BOOKSHELF";
 
+    // Upper bound for a single cursor page
+    private static final int MAX_SCROLL_SIZE = 100;
+
     // ============================================
     // CREATE ACTIVITIES
     // ============================================
@@ -51,10 +81,11 @@ public class ActivityFeedService {
                 .activityType(activityType)
                 .targetId(bookId)
                 .targetType(TARGET_TYPE_BOOK)
-                .metadata(serializeMetadata(metadata))
+                .bookId(bookId)
                 .build();
+        ActivityMetadataCodec.apply(activity, metadata);
 
-        return activityFeedRepository.save(activity);
+        return saveAndPublish(activity);
     }
 
     /**
@@ -65,19 +96,16 @@ public class ActivityFeedService {
     public ActivityFeed createReviewActivity(Long userId, Long reviewId, Long bookId, Integer rating) {
         User user = userService.getUserById(userId);
 
-        Map<String, Object> metadata = new HashMap<>();
-        metadata.put("bookId", bookId);
-        metadata.put("rating", rating);
-
         ActivityFeed activity = ActivityFeed.builder()
                 .user(user)
                 .activityType(ActivityType.POSTED_REVIEW)
                 .targetId(reviewId)
                 .targetType(TARGET_TYPE_REVIEW)
-                .metadata(serializeMetadata(metadata))
+                .bookId(bookId)
+                .rating(rating)
                 .build();
 
-        return activityFeedRepository.save(activity);
+        return saveAndPublish(activity);
     }
 
     /**
@@ -89,20 +117,15 @@ public class ActivityFeedService {
             Long bookshelfId, Long bookId) {
         User user = userService.getUserById(userId);
 
-        Map<String, Object> metadata = new HashMap<>();
-        if (bookId != null) {
-            metadata.put("bookId", bookId);
-        }
-
         ActivityFeed activity = ActivityFeed.builder()
                 .user(user)
                 .activityType(activityType)
                 .targetId(bookshelfId)
                 .targetType(TARGET_TYPE_BOOKSHELF)
-                .metadata(serializeMetadata(metadata))
+                .bookId(bookId)
                 .build();
 
-        return activityFeedRepository.save(activity);
+        return saveAndPublish(activity);
     }
 
     /**
@@ -120,7 +143,7 @@ public class ActivityFeedService {
                 .targetType(TARGET_TYPE_USER)
                 .build();
 
-        return activityFeedRepository.save(activity);
+        return saveAndPublish(activity);
     }
 
     /**
@@ -138,10 +161,38 @@ public class ActivityFeedService {
                 .activityType(activityType)
                 .targetId(targetId)
                 .targetType(targetType)
-                .metadata(serializeMetadata(metadata))
+                .bookId(TARGET_TYPE_BOOK.equals(targetType) ? targetId : null)
                 .build();
+        ActivityMetadataCodec.apply(activity, metadata);
 
-        return activityFeedRepository.save(activity);
+        return saveAndPublish(activity);
+    }
+
+    /**
+     * Persist an activity, push it into the home timelines and live streams of the author's followers
+     * and feed the streaming counters (most active users, trending books)
+     */
+    @SuppressWarnings("null")
+    private ActivityFeed saveAndPublish(ActivityFeed activity) {
+        ActivityFeed saved = activityFeedRepository.save(activity);
+        homeTimelineStore.publish(saved);
+        activityStreamBroker.publish(saved);
+        AfterCommit.run(() -> activeUsersTracker.record(saved.getUser().getId(), saved.getCreatedAt()));
+        activityDailyRollup.recordAfterCommit(saved.getUser().getId(), saved.getCreatedAt().toLocalDate(),
+                saved.getActivityType());
+        if (countsForTrending(saved)) {
+            AfterCommit.run(() -> trendingBooksTracker.record(saved.getBookId(), saved.getCreatedAt()));
+        }
+        return saved;
+    }
+
+    /**
+     * BOOK and REVIEW activities count towards their book's trending score
+     */
+    private boolean countsForTrending(ActivityFeed activity) {
+        return activity.getBookId() != null
+                && (TARGET_TYPE_BOOK.equals(activity.getTargetType())
+                        || TARGET_TYPE_REVIEW.equals(activity.getTargetType()));
     }
 
     // ============================================
@@ -150,16 +201,35 @@ public class ActivityFeedService {
 
     /**
      * Get user's own activity feed (profile page)
+     * Pages past the hot table continue transparently into the archive tier
      */
     public Page<ActivityFeed> getUserActivities(Long userId, Pageable pageable) {
-        return activityFeedRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
+        Page<ActivityFeed> hot = activityFeedRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
+        if (pageable.isUnpaged()) {
+            return hot;
+        }
+        long archived = archivedActivityRepository.countByUserId(userId);
+        if (archived == 0) {
+            return hot;
+        }
+
+        List<ActivityFeed> content = new ArrayList<>(hot.getContent());
+        int missing = pageable.getPageSize() - content.size();
+        if (missing > 0) {
+            long archiveOffset = Math.max(0, pageable.getOffset() - hot.getTotalElements());
+            appendArchived(userId, content,
+                    archivedActivityRepository.findUserActivities(userId, new OffsetPageRequest(archiveOffset, missing)));
+        }
+        return new PageImpl<>(content, pageable, hot.getTotalElements() + archived);
     }
 
     /**
      * Get feed from followed users only (following feed)
+     * Served from the materialized home timeline; deep pages fall back to the database
      */
     public Page<ActivityFeed> getFollowingFeed(Long userId, Pageable pageable) {
-        return activityFeedRepository.findFeedForUser(userId, pageable);
+        return homeTimelineStore.readFeed(userId, pageable, false)
+                .orElseGet(() -> activityFeedRepository.findFeedForUser(userId, pageable));
     }
 
     /**
@@ -167,7 +237,111 @@ public class ActivityFeedService {
      * This is the main "Home Feed"
      */
     public Page<ActivityFeed> getCombinedFeed(Long userId, Pageable pageable) {
-        return activityFeedRepository.findCombinedFeed(userId, pageable);
+        return homeTimelineStore.readFeed(userId, pageable, true)
+                .orElseGet(() -> activityFeedRepository.findCombinedFeed(userId, pageable));
+    }
+
+    // ============================================
+    // KEYSET (CURSOR) PAGINATION
+    // For infinite scroll: constant cost per page, no COUNT query
+    // ============================================
+
+    /**
+     * Scroll through a user's own activities
+     * Pass the previous page's nextCursor (or null for the first page)
+     */
+    public ActivityScroll scrollUserActivities(Long userId, String cursor, int size) {
+        return scroll(cursor, size, (createdAt, id, page) -> {
+            List<ActivityFeed> rows = activityFeedRepository.findUserActivitiesBefore(userId, createdAt, id, page);
+            return rows.size() < page.getPageSize()
+                    ? continueInArchive(userId, rows, createdAt, id, page.getPageSize())
+                    : rows;
+        });
+    }
+
+    /**
+     * Scroll through the following feed
+     */
+    public ActivityScroll scrollFollowingFeed(Long userId, String cursor, int size) {
+        return scroll(cursor, size,
+                (createdAt, id, page) -> activityFeedRepository.findFeedForUserBefore(userId, createdAt, id, page));
+    }
+
+    /**
+     * Scroll through the combined (home) feed
+     */
+    public ActivityScroll scrollCombinedFeed(Long userId, String cursor, int size) {
+        return scroll(cursor, size,
+                (createdAt, id, page) -> activityFeedRepository.findCombinedFeedBefore(userId, createdAt, id, page));
+    }
+
+    /**
+     * Fetch one row more than requested to learn whether another page exists
+     */
+    private ActivityScroll scroll(String cursor, int size, KeysetQuery query) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+        FeedCursor position = FeedCursor.decode(cursor);
+
+        List<ActivityFeed> rows = query.fetch(position.createdAt(), position.id(), PageRequest.of(0, pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new ActivityScroll(rows, null);
+        }
+
+        List<ActivityFeed> activities = rows.subList(0, pageSize);
+        ActivityFeed last = activities.get(pageSize - 1);
+        return new ActivityScroll(activities, new FeedCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    @FunctionalInterface
+    private interface KeysetQuery {
+        List<ActivityFeed> fetch(LocalDateTime createdAt, Long id, Pageable pageable);
+    }
+
+    // ============================================
+    // HELPER METHODS - ARCHIVE TIER
+    // ============================================
+
+    /**
+     * Fill up a keyset page from the archive, starting after the last hot row (or the cursor)
+     */
+    private List<ActivityFeed> continueInArchive(Long userId, List<ActivityFeed> hotRows,
+            LocalDateTime createdAt, Long id, int limit) {
+        List<ActivityFeed> rows = new ArrayList<>(hotRows);
+        if (!hotRows.isEmpty()) {
+            ActivityFeed last = hotRows.get(hotRows.size() - 1);
+            createdAt = last.getCreatedAt();
+            id = last.getId();
+        }
+        appendArchived(userId, rows, archivedActivityRepository.findUserActivitiesBefore(
+                userId, createdAt, id, PageRequest.of(0, limit - rows.size())));
+        return rows;
+    }
+
+    /**
+     * Append archived rows of one user as (detached) activities
+     */
+    private void appendArchived(Long userId, List<ActivityFeed> target, List<ArchivedActivity> archived) {
+        if (archived.isEmpty()) {
+            return;
+        }
+        User user = target.isEmpty() ? userService.getUserById(userId) : target.get(0).getUser();
+        for (ArchivedActivity a : archived) {
+            target.add(fromArchive(a, user));
+        }
+    }
+
+    private ActivityFeed fromArchive(ArchivedActivity archived, User user) {
+        return ActivityFeed.builder()
+                .id(archived.getId())
+                .user(user)
+                .activityType(archived.getActivityType())
+                .targetId(archived.getTargetId())
+                .targetType(archived.getTargetType())
+                .bookId(archived.getBookId())
+                .rating(archived.getRating())
+                .metadata(archived.getMetadata())
+                .createdAt(archived.getCreatedAt())
+                .build();
     }
 
     /**
@@ -197,71 +371,50 @@ public class ActivityFeedService {
     // ============================================
 
     /**
-     * Get activity statistics for a user
+     * Get activity statistics for a user (last 30 days)
      */
     public ActivityStats getActivityStats(Long userId) {
-        long totalActivities = activityFeedRepository.countByUserId(userId);
-
-        // Count activities by type (last 30 days)
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<ActivityFeed> recentActivities = activityFeedRepository.findRecentActivities(
-                userId, thirtyDaysAgo);
-
-        long booksAdded = recentActivities.stream()
-                .filter(a -> a.getActivityType() == ActivityType.ADDED_TO_BOOKSHELF)
-                .count();
-
-        long booksStarted = recentActivities.stream()
-                .filter(a -> a.getActivityType() == ActivityType.STARTED_BOOK)
-                .count();
-
-        long booksFinished = recentActivities.stream()
-                .filter(a -> a.getActivityType() == ActivityType.FINISHED_BOOK)
-                .count();
-
-        long reviewsWritten = recentActivities.stream()
-                .filter(a -> a.getActivityType() == ActivityType.POSTED_REVIEW)
-                .count();
+        return getActivityStats(userId, 30);
+    }
 
-        long bookshelvesCreated = recentActivities.stream()
-                .filter(a -> a.getActivityType() == ActivityType.CREATED_BOOKSHELF)
-                .count();
+    /**
+     * Get activity statistics for a user over the last N days
+     * Answered from the daily rollup: one grouped query over at most one row per (day, type)
+     */
+    public ActivityStats getActivityStats(Long userId, int days) {
+        LocalDate since = LocalDate.now().minusDays(days - 1L);
+
+        long totalActivities = 0;
+        long recentActivities = 0;
+        Map<ActivityType, Long> recentByType = new EnumMap<>(ActivityType.class);
+        for (Object[] row : activityDailyCountRepository.sumByTypeForUser(userId, since)) {
+            long total = ((Number) row[1]).longValue();
+            long recent = ((Number) row[2]).longValue();
+            totalActivities += total;
+            recentActivities += recent;
+            recentByType.put((ActivityType) row[0], recent);
+        }
 
         return new ActivityStats(
                 totalActivities,
-                recentActivities.size(),
-                booksAdded,
-                booksStarted,
-                booksFinished,
-                reviewsWritten,
-                bookshelvesCreated);
+                recentActivities,
+                recentByType.getOrDefault(ActivityType.ADDED_TO_BOOKSHELF, 0L),
+                recentByType.getOrDefault(ActivityType.STARTED_BOOK, 0L),
+                recentByType.getOrDefault(ActivityType.FINISHED_BOOK, 0L),
+                recentByType.getOrDefault(ActivityType.POSTED_REVIEW, 0L),
+                recentByType.getOrDefault(ActivityType.CREATED_BOOKSHELF, 0L));
     }
 
     /**
      * Get most active users (by activity count in last 30 days)
+     * Answered from the streaming heavy-hitters summary; counts are upper-bound estimates
      */
     public List<Map<String, Object>> getMostActiveUsers(int limit) {
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        LocalDateTime now = LocalDateTime.now();
-
-        List<ActivityFeed> recentActivities = activityFeedRepository
-                .findActivitiesInDateRange(thirtyDaysAgo, now);
-
-        // Group by user and count activities
-        Map<Long, Long> userActivityCount = new HashMap<>();
-        for (ActivityFeed activity : recentActivities) {
-            Long userId = activity.getUser().getId();
-            userActivityCount.put(userId, userActivityCount.getOrDefault(userId, 0L) + 1);
-        }
-
-        // Sort and return top users
-        return userActivityCount.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .limit(limit)
+        return activeUsersTracker.topUsers(limit).stream()
                 .map(entry -> {
                     Map<String, Object> result = new HashMap<>();
-                    result.put("userId", entry.getKey());
-                    result.put("activityCount", entry.getValue());
+                    result.put("userId", entry.userId());
+                    result.put("activityCount", entry.count());
                     return result;
                 })
                 .toList();
@@ -269,38 +422,14 @@ public class ActivityFeedService {
 
     /**
      * Get trending books from activity feed (last 7 days)
+     * Answered from the in-memory sliding-window counters
      */
     public List<Map<String, Object>> getTrendingBooks(int limit) {
-        LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-        LocalDateTime now = LocalDateTime.now();
-
-        List<ActivityFeed> recentActivities = activityFeedRepository
-                .findActivitiesInDateRange(sevenDaysAgo, now);
-
-        // Count book-related activities
-        Map<Long, Long> bookActivityCount = new HashMap<>();
-        for (ActivityFeed activity : recentActivities) {
-            if (TARGET_TYPE_BOOK.equals(activity.getTargetType())) {
-                Long bookId = activity.getTargetId();
-                bookActivityCount.put(bookId, bookActivityCount.getOrDefault(bookId, 0L) + 1);
-            } else if (TARGET_TYPE_REVIEW.equals(activity.getTargetType())) {
-                // Extract bookId from metadata
-                Map<String, Object> metadata = deserializeMetadata(activity.getMetadata());
-                if (metadata != null && metadata.containsKey("bookId")) {
-                    Long bookId = ((Number) metadata.get("bookId")).longValue();
-                    bookActivityCount.put(bookId, bookActivityCount.getOrDefault(bookId, 0L) + 1);
-                }
-            }
-        }
-
-        // Sort and return top books
-        return bookActivityCount.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .limit(limit)
+        return trendingBooksTracker.topBooks(limit).stream()
                 .map(entry -> {
                     Map<String, Object> result = new HashMap<>();
-                    result.put("bookId", entry.getKey());
-                    result.put("activityCount", entry.getValue());
+                    result.put("bookId", entry.bookId());
+                    result.put("activityCount", entry.count());
                     return result;
                 })
                 .toList();
@@ -316,11 +445,13 @@ public class ActivityFeedService {
      */
     public ActivityDetails getActivityDetails(long activityId) {
         ActivityFeed activity = activityFeedRepository.findById(activityId)
+                .or(() -> archivedActivityRepository.findById(activityId)
+                        .map(a -> fromArchive(a, userService.getUserById(a.getUserId()))))
                 .orElseThrow(() -> new RuntimeException("Activity not found"));
 
         ActivityDetails details = new ActivityDetails();
         details.setActivity(activity);
-        details.setMetadata(deserializeMetadata(activity.getMetadata()));
+        details.setMetadata(ActivityMetadataCodec.read(activity));
 
         return details;
     }
@@ -342,57 +473,16 @@ public class ActivityFeedService {
         };
     }
 
-    // ============================================
-    // HELPER METHODS - JSON METADATA
-    // ============================================
-
-    /**
-     * Serialize metadata map to JSON string
-     */
-    private String serializeMetadata(Map<String, Object> metadata) {
-        if (metadata == null || metadata.isEmpty()) {
-            return null;
-        }
-        try {
-            return objectMapper.writeValueAsString(metadata);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-
-    /**
-     * Deserialize JSON string to metadata map
-     */
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> deserializeMetadata(String metadataJson) {
-        if (metadataJson == null || metadataJson.isEmpty()) {
-            return new HashMap<>();
-        }
-        try {
-            return objectMapper.readValue(metadataJson, Map.class);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-            return new HashMap<>();
-        }
-    }
-
     // ============================================
     // CLEANUP & MAINTENANCE
     // ============================================
 
     /**
      * Delete old activities (for data retention)
+     * Runs as chunked bulk deletes, each chunk in its own short transaction
      */
-    @SuppressWarnings("null")
-    @Transactional
     public int deleteOldActivities(int daysToKeep) {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysToKeep);
-        List<ActivityFeed> oldActivities = activityFeedRepository
-                .findActivitiesInDateRange(LocalDateTime.of(2000, 1, 1, 0, 0), cutoffDate);
-
-        activityFeedRepository.deleteAll(oldActivities);
-        return oldActivities.size();
+        return activityRetentionJob.purgeOlderThan(daysToKeep);
     }
 
     // ============================================
@@ -401,7 +491,7 @@ public class ActivityFeedService {
 
     public static class ActivityStats {
         private long totalActivities;
-        private long recentActivities; // Last 30 days
+        private long recentActivities; // Within the requested window
         private long booksAdded;
         private long booksStarted;
         private long booksFinished;
@@ -456,6 +546,28 @@ public class ActivityFeedService {
         }
     }
 
+    public static class ActivityScroll {
+        private final List<ActivityFeed> activities;
+        private final String nextCursor; // null when this is the last page
+
+        public ActivityScroll(List<ActivityFeed> activities, String nextCursor) {
+            this.activities = activities;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<ActivityFeed> getActivities() {
+            return activities;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public boolean hasNext() {
+            return nextCursor != null;
+        }
+    }
+
     public static class ActivityDetails {
         private ActivityFeed activity;
         private Map<String, Object> metadata;
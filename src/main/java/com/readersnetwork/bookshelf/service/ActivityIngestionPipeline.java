@@ -0,0 +1,311 @@
+package com.readersnetwork.bookshelf.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous, batched writer for the activity feed.
+ *
+ * Strategy:
+ * - Domain services publish {@link ActivityEvent}s; they are queued after the caller's
+ *   transaction commits, so a rolled back write never produces an activity
+ * - A single writer thread drains the bounded queue and inserts whole batches with one
+ *   JDBC batch statement, referencing users by id (no entity loads, no per-row flush);
+ *   the daily rollup is updated in the same transaction
+ * - After a batch commits, the home timelines, live streams and streaming counters are updated in id order
+ * - Backpressure: when the queue stays full for {@code offer-timeout-ms}, the publishing thread
+ *   writes its event itself, so events are never dropped and producers slow down to the writer's pace
+ * - On shutdown the queue is flushed before the datasource goes away
+ * - Metrics (bookshelf.activity.ingest.*): queue size, enqueue-to-commit lag, batch duration,
+ *   rows written, backpressure hits and failed rows
+ */
+@Component
+@Slf4j
+public class ActivityIngestionPipeline {
+
+    private static final String INSERT_SQL = "INSERT INTO activity_feed "
+            + "(user_id, activity_type, target_id, target_type, book_id, rating, metadata, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HomeTimelineStore homeTimelineStore;
+    private final ActivityStreamBroker activityStreamBroker;
+    private final ActivityDailyRollup activityDailyRollup;
+    private final TrendingBooksTracker trendingBooksTracker;
+    private final ActiveUsersTracker activeUsersTracker;
+    private final MeterRegistry meterRegistry;
+
+    private final Counter rowsWritten;
+    private final Counter rowsFailed;
+    private final Counter backpressure;
+    private final Timer lag;
+    private final Timer batchDuration;
+
+    @Value("${bookshelf.activity.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${bookshelf.activity.ingest.batch-size:200}")
+    private int batchSize;
+
+    @Value("${bookshelf.activity.ingest.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${bookshelf.activity.ingest.offer-timeout-ms:20}")
+    private long offerTimeoutMs;
+
+    @Value("${bookshelf.activity.ingest.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<Pending> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private record Pending(ActivityEvent event, long enqueuedAt) {
+    }
+
+    public ActivityIngestionPipeline(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            HomeTimelineStore homeTimelineStore,
+            ActivityStreamBroker activityStreamBroker,
+            ActivityDailyRollup activityDailyRollup,
+            TrendingBooksTracker trendingBooksTracker,
+            ActiveUsersTracker activeUsersTracker,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Backpressure writes run in the publisher's afterCommit, where its finished transaction is still bound
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.homeTimelineStore = homeTimelineStore;
+        this.activityStreamBroker = activityStreamBroker;
+        this.activityDailyRollup = activityDailyRollup;
+        this.trendingBooksTracker = trendingBooksTracker;
+        this.activeUsersTracker = activeUsersTracker;
+        this.meterRegistry = meterRegistry;
+        this.rowsWritten = Counter.builder("bookshelf.activity.ingest.written")
+                .description("Activities persisted by the ingestion pipeline")
+                .register(meterRegistry);
+        this.rowsFailed = Counter.builder("bookshelf.activity.ingest.failed")
+                .description("Activities that could not be persisted")
+                .register(meterRegistry);
+        this.backpressure = Counter.builder("bookshelf.activity.ingest.backpressure")
+                .description("Activities written by the publishing thread because the queue was full")
+                .register(meterRegistry);
+        this.lag = Timer.builder("bookshelf.activity.ingest.lag")
+                .description("Time from publishing an activity to its commit")
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("bookshelf.activity.ingest.batch.duration")
+                .description("Duration of one batch insert")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        meterRegistry.gauge("bookshelf.activity.ingest.queue.size", queue, BlockingQueue::size);
+        running = true;
+        writer = new Thread(this::drainLoop, "activity-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Activity writer did not finish within {} ms; {} activities not flushed",
+                    shutdownTimeoutMs, queue.size());
+        } else {
+            log.info("Activity ingestion pipeline stopped");
+        }
+    }
+
+    // ============================================
+    // PUBLIC API
+    // ============================================
+
+    /**
+     * Queue an activity for writing once the surrounding transaction commits
+     * (or immediately if there is none).
+     */
+    public void publish(ActivityEvent event) {
+        AfterCommit.run(() -> enqueue(event));
+    }
+
+    /**
+     * Number of activities waiting to be written.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    // ============================================
+    // QUEUE & WRITER
+    // ============================================
+
+    private void enqueue(ActivityEvent event) {
+        Pending pending = new Pending(event, System.nanoTime());
+        try {
+            if (running && queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Queue full or shutting down: the caller pays for its own write
+        backpressure.increment();
+        write(List.of(pending));
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Activity writer error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert a batch and publish it to the timelines and counters.
+     * Serialized so activity ids reach the timelines in increasing order.
+     */
+    private synchronized void write(List<Pending> batch) {
+        Timer.Sample sample = Timer.start();
+        long[] ids;
+        try {
+            ids = insertBatch(batch);
+        } catch (RuntimeException e) {
+            log.warn("Batch insert of {} activities failed ({}); retrying one by one",
+                    batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                writeOne(pending);
+            }
+            return;
+        } finally {
+            sample.stop(batchDuration);
+        }
+        afterWrite(batch, ids);
+    }
+
+    private void writeOne(Pending pending) {
+        List<Pending> single = List.of(pending);
+        long[] ids;
+        try {
+            ids = insertBatch(single);
+        } catch (RuntimeException e) {
+            rowsFailed.increment();
+            log.error("Dropping activity {} by user {}: {}", pending.event().activityType(),
+                    pending.event().userId(), e.getMessage());
+            return;
+        }
+        afterWrite(single, ids);
+    }
+
+    private long[] insertBatch(List<Pending> batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        List<ActivityDailyRollup.Key> rollupKeys = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            ActivityEvent event = pending.event();
+            rollupKeys.add(new ActivityDailyRollup.Key(
+                    event.userId(), event.createdAt().toLocalDate(), event.activityType()));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(INSERT_SQL, new String[] { "id" }),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            bind(ps, batch.get(i).event());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    },
+                    keyHolder);
+            activityDailyRollup.apply(ActivityDailyRollup.deltas(rollupKeys));
+        });
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        long[] ids = new long[batch.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i < keys.size() ? ((Number) keys.get(i).values().iterator().next()).longValue() : -1L;
+        }
+        return ids;
+    }
+
+    private static void bind(PreparedStatement ps, ActivityEvent event) throws SQLException {
+        ps.setLong(1, event.userId());
+        ps.setString(2, event.activityType().name());
+        ps.setObject(3, event.targetId(), Types.BIGINT);
+        ps.setString(4, event.targetType());
+        ps.setObject(5, event.bookId(), Types.BIGINT);
+        ps.setObject(6, event.rating(), Types.INTEGER);
+        ps.setString(7, ActivityMetadataCodec.toJson(event.metadata()));
+        ps.setTimestamp(8, Timestamp.valueOf(event.createdAt()));
+    }
+
+    private void afterWrite(List<Pending> batch, long[] ids) {
+        long now = System.nanoTime();
+        for (int i = 0; i < ids.length; i++) {
+            ActivityEvent event = batch.get(i).event();
+            LocalDateTime at = event.createdAt();
+            if (ids[i] > 0) {
+                homeTimelineStore.fanOut(ids[i], event.userId());
+                activityStreamBroker.deliver(ActivityStreamBroker.toEvent(ids[i], event));
+            }
+            activeUsersTracker.record(event.userId(), at);
+            if (event.countsForTrending()) {
+                trendingBooksTracker.record(event.bookId(), at);
+            }
+            lag.record(now - batch.get(i).enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        rowsWritten.increment(ids.length);
+    }
+}
@@ -0,0 +1,84 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.ActivityFeed;
+import com.readersnetwork.bookshelf.entity.DataMigration;
+import com.readersnetwork.bookshelf.repository.ActivityFeedRepository;
+import com.readersnetwork.bookshelf.repository.DataMigrationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * One-time migration of activity metadata from JSON to the typed columns.
+ *
+ * Runs at startup before the in-memory counters are rebuilt:
+ * - BOOK targets get book_id = target_id in one bulk UPDATE
+ * - Rows whose JSON still holds bookId / rating are walked in id order, in chunks,
+ *   one short transaction per chunk; the typed keys are moved out of the JSON so
+ *   migrated rows are never picked up again
+ * - Values that are not numeric stay in the JSON, and rows whose JSON cannot be parsed are
+ *   left untouched; both are logged with the activity id
+ * - A data_migrations row is written when the walk finishes, so later boots skip it
+ */
+@Component
+@Slf4j
+public class ActivityMetadataBackfill {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final String MIGRATION_NAME = "activity-metadata-typed-columns";
+
+    private final ActivityFeedRepository activityFeedRepository;
+    private final DataMigrationRepository dataMigrationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ActivityMetadataBackfill(ActivityFeedRepository activityFeedRepository,
+            DataMigrationRepository dataMigrationRepository, PlatformTransactionManager transactionManager) {
+        this.activityFeedRepository = activityFeedRepository;
+        this.dataMigrationRepository = dataMigrationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void migrate() {
+        if (dataMigrationRepository.existsByName(MIGRATION_NAME)) {
+            return;
+        }
+        Integer bookTargets = transactionTemplate.execute(status -> activityFeedRepository.backfillBookTargets());
+
+        long lastId = 0L;
+        int migrated = 0;
+        int[] skipped = { 0 };
+        while (true) {
+            long afterId = lastId;
+            List<ActivityFeed> chunk = transactionTemplate.execute(status -> {
+                List<ActivityFeed> rows = activityFeedRepository.findWithUntypedMetadata(
+                        afterId, PageRequest.of(0, CHUNK_SIZE));
+                for (ActivityFeed row : rows) {
+                    if (!ActivityMetadataCodec.migrate(row)) {
+                        skipped[0]++;
+                        log.warn("Activity metadata backfill: left activity {} as is, its metadata is not valid JSON",
+                                row.getId());
+                    }
+                }
+                return rows;
+            });
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            migrated += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+
+        transactionTemplate.executeWithoutResult(status -> dataMigrationRepository.save(
+                DataMigration.builder().name(MIGRATION_NAME).build()));
+        if ((bookTargets != null && bookTargets > 0) || migrated > 0) {
+            log.info("Activity metadata backfill: {} book targets, {} JSON rows migrated, {} left as is",
+                    bookTargets, migrated - skipped[0], skipped[0]);
+        }
+    }
+}
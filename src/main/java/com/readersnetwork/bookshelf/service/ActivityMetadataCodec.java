@@ -0,0 +1,137 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.readersnetwork.bookshelf.entity.ActivityFeed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits activity metadata between the typed columns and the JSON extras column.
+ *
+ * - bookId / rating live in their own columns so hot paths (trending, stats) read them
+ *   without JSON parsing or boxing
+ * - Anything else is kept as a small JSON object in activity_feed.metadata
+ * - {@link #read(ActivityFeed)} gives callers the same merged map as before
+ */
+@Slf4j
+final class ActivityMetadataCodec {
+
+    static final String BOOK_ID = "bookId";
+    static final String RATING = "rating";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ActivityMetadataCodec() {
+    }
+
+    /**
+     * Copy typed fields from the map onto the activity (unless already set) and store the rest as JSON.
+     */
+    static void apply(ActivityFeed activity, Map<String, Object> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            activity.setMetadata(null);
+            return;
+        }
+
+        Map<String, Object> extras = new HashMap<>(metadata);
+        Number bookId = takeNumber(activity, extras, BOOK_ID);
+        if (bookId != null && activity.getBookId() == null) {
+            activity.setBookId(bookId.longValue());
+        }
+        Number rating = takeNumber(activity, extras, RATING);
+        if (rating != null && activity.getRating() == null) {
+            activity.setRating(rating.intValue());
+        }
+        activity.setMetadata(toJson(extras));
+    }
+
+    /**
+     * Move the typed fields of an activity's stored JSON into the columns. Returns false, leaving
+     * the row as it is, if the JSON cannot be parsed.
+     */
+    @SuppressWarnings("unchecked")
+    static boolean migrate(ActivityFeed activity) {
+        Map<String, Object> metadata;
+        try {
+            metadata = new HashMap<>(OBJECT_MAPPER.readValue(activity.getMetadata(), Map.class));
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+        apply(activity, metadata);
+        return true;
+    }
+
+    /**
+     * Full metadata view: typed columns merged with the JSON extras.
+     */
+    static Map<String, Object> read(ActivityFeed activity) {
+        Map<String, Object> metadata = fromJson(activity.getMetadata());
+        if (activity.getBookId() != null) {
+            metadata.put(BOOK_ID, activity.getBookId());
+        }
+        if (activity.getRating() != null) {
+            metadata.put(RATING, activity.getRating());
+        }
+        return metadata;
+    }
+
+    /**
+     * Remove and return a numeric value (numbers or numeric strings); anything else stays in the extras.
+     */
+    private static Number takeNumber(ActivityFeed activity, Map<String, Object> extras, String key) {
+        Object value = extras.get(key);
+        if (value == null) {
+            extras.remove(key);
+            return null;
+        }
+        if (value instanceof Number number) {
+            extras.remove(key);
+            return number;
+        }
+        if (value instanceof String text) {
+            try {
+                long parsed = Long.parseLong(text.trim());
+                extras.remove(key);
+                return parsed;
+            } catch (NumberFormatException e) {
+                // kept below
+            }
+        }
+        log.warn("Keeping non-numeric activity metadata {}={} in JSON (activity {})", key, value, activity.getId());
+        return null;
+    }
+
+    /**
+     * Serialize metadata map to JSON string (null when empty)
+     */
+    static String toJson(Map<String, Object> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize activity metadata: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Deserialize JSON string to a mutable metadata map
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> fromJson(String metadataJson) {
+        if (metadataJson == null || metadataJson.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return new HashMap<>(OBJECT_MAPPER.readValue(metadataJson, Map.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not parse activity metadata: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.repository.ActivityDailyCountRepository;
+import com.readersnetwork.bookshelf.repository.ActivityFeedRepository;
+import com.readersnetwork.bookshelf.repository.ArchivedActivityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Data retention for the activity_feed table and its archive tier.
+ *
+ * Strategy:
+ * - Resolves the id range of rows older than the cutoff once (ids grow with created_at)
+ * - Walks that range in fixed-size chunks, one bulk DELETE and one short transaction per chunk,
+ *   so no entities are loaded and locks are held only for a chunk at a time
+ * - Pauses between chunks to throttle load on the database
+ * - Drops the daily rollup rows of fully purged days, so statistics match the remaining activities
+ * - Runs on a cron schedule when enabled; a run never overlaps another
+ * - Publishes rows-deleted / duration / last-run metrics (bookshelf.retention.*)
+ */
+@Component
+@Slf4j
+public class ActivityRetentionJob {
+
+    private final ActivityFeedRepository activityFeedRepository;
+    private final ActivityDailyCountRepository activityDailyCountRepository;
+    private final ArchivedActivityRepository archivedActivityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter rowsDeleted;
+    private final Timer runDuration;
+    private final AtomicLong lastRunRowsDeleted = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${bookshelf.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${bookshelf.retention.days-to-keep:365}")
+    private int daysToKeep;
+
+    @Value("${bookshelf.retention.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${bookshelf.retention.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+
+    public ActivityRetentionJob(ActivityFeedRepository activityFeedRepository,
+            ActivityDailyCountRepository activityDailyCountRepository,
+            ArchivedActivityRepository archivedActivityRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.activityFeedRepository = activityFeedRepository;
+        this.activityDailyCountRepository = activityDailyCountRepository;
+        this.archivedActivityRepository = archivedActivityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rowsDeleted = Counter.builder("bookshelf.retention.rows.deleted")
+                .description("Activity rows removed by the retention job")
+                .register(meterRegistry);
+        this.runDuration = Timer.builder("bookshelf.retention.duration")
+                .description("Duration of retention runs")
+                .register(meterRegistry);
+        meterRegistry.gauge("bookshelf.retention.last.run.rows", lastRunRowsDeleted);
+    }
+
+    /**
+     * Scheduled entry point (daily at 03:30 by default).
+     */
+    @Scheduled(cron = "${bookshelf.retention.cron:0 30 3 * * *}")
+    public void runScheduled() {
+        if (!enabled) {
+            return;
+        }
+        purgeOlderThan(daysToKeep);
+    }
+
+    /**
+     * Delete activities older than the given number of days.
+     *
+     * @return number of rows deleted (0 if another run is in progress)
+     */
+    public int purgeOlderThan(int days) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("[Retention] A run is already in progress. Skipping.");
+            return 0;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            return purge(LocalDateTime.now().minusDays(days));
+        } finally {
+            sample.stop(runDuration);
+            running.set(false);
+        }
+    }
+
+    private int purge(LocalDateTime cutoff) {
+        transactionTemplate.executeWithoutResult(
+                status -> activityDailyCountRepository.deleteByActivityDateBefore(cutoff.toLocalDate()));
+
+        int total = purgeTier("activity_feed", activityFeedRepository::findIdRangeCreatedBefore,
+                activityFeedRepository::deleteChunkCreatedBefore, cutoff);
+        if (!Thread.currentThread().isInterrupted()) {
+            total += purgeTier("activity_feed_archive", archivedActivityRepository::findIdRangeCreatedBefore,
+                    archivedActivityRepository::deleteChunkCreatedBefore, cutoff);
+        }
+
+        lastRunRowsDeleted.set(total);
+        log.info("[Retention] Deleted {} activities.", total);
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface ChunkDelete {
+        int delete(Long fromId, Long toId, LocalDateTime cutoff);
+    }
+
+    private int purgeTier(String table, Function<LocalDateTime, List<Object[]>> idRange, ChunkDelete chunkDelete,
+            LocalDateTime cutoff) {
+        List<Object[]> range = idRange.apply(cutoff);
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            return 0;
+        }
+
+        long minId = ((Number) range.get(0)[0]).longValue();
+        long maxId = ((Number) range.get(0)[1]).longValue();
+        log.info("[Retention] Deleting {} rows created before {} (ids {}..{}, chunk size {})",
+                table, cutoff, minId, maxId, chunkSize);
+
+        int total = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+            long from = fromId;
+            long to = fromId + chunkSize;
+            Integer deleted = transactionTemplate.execute(status -> chunkDelete.delete(from, to, cutoff));
+            int chunkDeleted = deleted != null ? deleted : 0;
+            total += chunkDeleted;
+            rowsDeleted.increment(chunkDeleted);
+
+            if (chunkPauseMs > 0 && to <= maxId) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(chunkPauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("[Retention] Interrupted after deleting {} rows from {}.", total, table);
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+}
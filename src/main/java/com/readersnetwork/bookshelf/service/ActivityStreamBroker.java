@@ -0,0 +1,394 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.dto.response.ActivityStreamEvent;
+import com.readersnetwork.bookshelf.entity.ActivityFeed;
+import com.readersnetwork.bookshelf.repository.ActivityFeedRepository;
+import com.readersnetwork.bookshelf.repository.UserFollowRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process pub/sub behind the live activity stream (Server-Sent Events).
+ *
+ * Strategy:
+ * - Each connection subscribes to its user's own activities and those of everyone they follow;
+ *   subscriptions are indexed by author, so routing a new activity is one map lookup
+ * - The author set is loaded from user_follows once per connection and refreshed on follow / unfollow
+ * - Each connection has its own bounded write queue, drained in order by one of {@code threads}
+ *   workers at a time; publishers only enqueue, so they never block, and a slow client only delays
+ *   itself. A connection whose queue fills up ({@code max-queued}) is closed: the client reconnects
+ *   and catches up through Last-Event-ID
+ * - Resume: a reconnecting client sends Last-Event-ID (the last activity id it saw) and gets
+ *   up to {@code replay-limit} missed activities before the live ones. The replay query runs on a
+ *   worker; live events arriving meanwhile are held back and queued after it, so ids never go
+ *   backwards and none are skipped
+ * - Connections are capped globally and per user; a heartbeat comment drops dead connections
+ */
+@Component
+@Slf4j
+public class ActivityStreamBroker {
+
+    private static final String EVENT_NAME = "activity";
+    private static final Outbound KEEP_ALIVE = new Outbound(null);
+
+    private final ActivityFeedRepository activityFeedRepository;
+    private final UserFollowRepository userFollowRepository;
+
+    // authorId -> connections interested in that author's activities
+    private final Map<Long, Set<Subscription>> byAuthor = new ConcurrentHashMap<>();
+    // subscriber userId -> their open connections
+    private final Map<Long, Set<Subscription>> byUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService workers;
+
+    @Value("${bookshelf.feed.stream.max-connections:1000}")
+    private int maxConnections;
+
+    @Value("${bookshelf.feed.stream.max-connections-per-user:3}")
+    private int maxConnectionsPerUser;
+
+    @Value("${bookshelf.feed.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${bookshelf.feed.stream.replay-limit:100}")
+    private int replayLimit;
+
+    @Value("${bookshelf.feed.stream.max-queued:256}")
+    private int maxQueued;
+
+    public ActivityStreamBroker(ActivityFeedRepository activityFeedRepository,
+            UserFollowRepository userFollowRepository,
+            MeterRegistry meterRegistry,
+            @Value("${bookshelf.feed.stream.threads:4}") int threads) {
+        this.activityFeedRepository = activityFeedRepository;
+        this.userFollowRepository = userFollowRepository;
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "activity-stream-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("bookshelf.feed.stream.connections", connections);
+    }
+
+    private static final class Subscription {
+        private final long userId;
+        private final SseEmitter emitter;
+        private volatile Set<Long> authors = Set.of();
+        // Guarded by the subscription itself
+        private final Deque<Outbound> queue = new ArrayDeque<>();
+        private List<ActivityStreamEvent> heldBack;
+        private boolean draining;
+        private boolean closed;
+        // Draining worker only (one at a time)
+        private long lastSentId;
+
+        private Subscription(long userId, SseEmitter emitter, long lastSentId, boolean replaying) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.lastSentId = lastSentId;
+            this.heldBack = replaying ? new ArrayList<>() : null;
+        }
+    }
+
+    /** One queued write: an activity, or a keep-alive comment (null event). */
+    private record Outbound(ActivityStreamEvent event) {
+    }
+
+    /** What queuing under a connection's lock asks for, done after the lock is released. */
+    private enum Queued {
+        NOTHING, DRAIN, OVERFLOW
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+        byUser.values().forEach(subscriptions -> subscriptions.forEach(s -> s.emitter.complete()));
+    }
+
+    // ============================================
+    // SUBSCRIBE
+    // ============================================
+
+    /**
+     * Open a live stream for a user.
+     *
+     * @param lastEventId id of the last activity the client received, or null for live events only
+     * @return the emitter, or empty if a connection limit is reached
+     */
+    public synchronized Optional<SseEmitter> subscribe(long userId, Long lastEventId) {
+        Set<Subscription> own = byUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet());
+        if (connections.get() >= maxConnections || own.size() >= maxConnectionsPerUser) {
+            if (own.isEmpty()) {
+                byUser.remove(userId);
+            }
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscription subscription = new Subscription(userId, emitter, lastEventId != null ? lastEventId : 0L,
+                lastEventId != null);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+
+        own.add(subscription);
+        connections.incrementAndGet();
+        route(subscription, loadAuthors(userId));
+
+        if (lastEventId != null) {
+            workers.execute(() -> replay(subscription, lastEventId));
+        }
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Reload the author set of a user's open connections after their follow graph changed.
+     * Runs after the surrounding transaction commits.
+     */
+    public void refreshFollows(Long userId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Set<Subscription> own = byUser.get(userId);
+                if (own == null || own.isEmpty()) {
+                    return;
+                }
+                Set<Long> authors = loadAuthors(userId);
+                own.forEach(subscription -> route(subscription, authors));
+            }
+        });
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        Set<Subscription> own = byUser.get(subscription.userId);
+        if (own == null || !own.remove(subscription)) {
+            return; // already removed
+        }
+        if (own.isEmpty()) {
+            byUser.remove(subscription.userId);
+        }
+        route(subscription, Set.of());
+        connections.decrementAndGet();
+    }
+
+    private void route(Subscription subscription, Set<Long> authors) {
+        for (Long authorId : subscription.authors) {
+            Set<Subscription> subscribers = byAuthor.get(authorId);
+            if (subscribers != null) {
+                subscribers.remove(subscription);
+                if (subscribers.isEmpty()) {
+                    byAuthor.remove(authorId);
+                }
+            }
+        }
+        for (Long authorId : authors) {
+            byAuthor.computeIfAbsent(authorId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+        subscription.authors = authors;
+    }
+
+    private Set<Long> loadAuthors(long userId) {
+        Set<Long> authors = new HashSet<>(userFollowRepository.findFollowingIds(userId));
+        authors.add(userId);
+        return authors;
+    }
+
+    // ============================================
+    // PUBLISH
+    // ============================================
+
+    /**
+     * Push a newly saved activity to the live streams interested in its author.
+     * Runs after the surrounding transaction commits (or immediately if there is none).
+     */
+    public void publish(ActivityFeed activity) {
+        ActivityStreamEvent event = toEvent(activity);
+        AfterCommit.run(() -> deliver(event));
+    }
+
+    /**
+     * Push an already committed activity to the live streams interested in its author.
+     */
+    public void deliver(ActivityStreamEvent event) {
+        Set<Subscription> subscribers = byAuthor.get(event.getUserId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : subscribers) {
+            sendLive(subscription, event);
+        }
+    }
+
+    /**
+     * Keep idle connections alive and drop the ones whose client went away.
+     */
+    @Scheduled(fixedDelayString = "${bookshelf.feed.stream.heartbeat-ms:30000}")
+    public void heartbeat() {
+        byUser.values().forEach(subscriptions -> subscriptions.forEach(subscription -> {
+            Queued queued;
+            synchronized (subscription) {
+                // A connection with writes pending needs no keep-alive
+                queued = subscription.queue.isEmpty() && !subscription.draining
+                        ? offer(subscription, List.of(KEEP_ALIVE))
+                        : Queued.NOTHING;
+            }
+            dispatch(subscription, queued);
+        }));
+    }
+
+    // Worker thread: live events arriving meanwhile are held back, then queued after the missed ones
+    private void replay(Subscription subscription, long lastEventId) {
+        List<ActivityFeed> missed = List.of();
+        try {
+            missed = activityFeedRepository.findByUserIdInAndIdGreaterThan(
+                    subscription.authors, lastEventId, PageRequest.of(0, replayLimit, Sort.by(Sort.Direction.DESC, "id")));
+        } catch (RuntimeException e) {
+            log.warn("Replay for user {} failed: {}", subscription.userId, e.getMessage());
+        }
+        List<Outbound> items = new ArrayList<>();
+        for (int i = missed.size() - 1; i >= 0; i--) {
+            items.add(new Outbound(toEvent(missed.get(i))));
+        }
+        Queued queued;
+        synchronized (subscription) {
+            List<ActivityStreamEvent> heldBack = subscription.heldBack;
+            subscription.heldBack = null;
+            heldBack.sort(Comparator.comparingLong(ActivityStreamEvent::getId));
+            heldBack.forEach(event -> items.add(new Outbound(event)));
+            queued = offer(subscription, items);
+        }
+        dispatch(subscription, queued);
+    }
+
+    private void sendLive(Subscription subscription, ActivityStreamEvent event) {
+        Queued queued;
+        synchronized (subscription) {
+            if (subscription.heldBack != null) {
+                subscription.heldBack.add(event);
+                return;
+            }
+            queued = offer(subscription, List.of(new Outbound(event)));
+        }
+        dispatch(subscription, queued);
+    }
+
+    // Caller holds the subscription's lock
+    private Queued offer(Subscription subscription, List<Outbound> items) {
+        if (subscription.closed || items.isEmpty()) {
+            return Queued.NOTHING;
+        }
+        if (subscription.queue.size() + items.size() > maxQueued) {
+            subscription.closed = true;
+            subscription.queue.clear();
+            return Queued.OVERFLOW;
+        }
+        subscription.queue.addAll(items);
+        if (subscription.draining) {
+            return Queued.NOTHING;
+        }
+        subscription.draining = true;
+        return Queued.DRAIN;
+    }
+
+    private void dispatch(Subscription subscription, Queued queued) {
+        if (queued == Queued.OVERFLOW) {
+            log.debug("Dropping live stream of user {}: more than {} writes queued", subscription.userId, maxQueued);
+            subscription.emitter.complete();
+        } else if (queued == Queued.DRAIN) {
+            try {
+                workers.execute(() -> drain(subscription));
+            } catch (RejectedExecutionException e) {
+                // shutting down: every emitter is being completed
+            }
+        }
+    }
+
+    // One worker per subscription at a time, so its writes keep their order
+    private void drain(Subscription subscription) {
+        while (true) {
+            Outbound item;
+            synchronized (subscription) {
+                item = subscription.queue.poll();
+                if (item == null) {
+                    subscription.draining = false;
+                    return;
+                }
+            }
+            send(subscription, item);
+        }
+    }
+
+    private void send(Subscription subscription, Outbound item) {
+        ActivityStreamEvent event = item.event();
+        if (event != null && event.getId() <= subscription.lastSentId) {
+            return; // already delivered by the replay
+        }
+        try {
+            if (event == null) {
+                subscription.emitter.send(SseEmitter.event().comment("keep-alive"));
+            } else {
+                subscription.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.getId()))
+                        .name(EVENT_NAME)
+                        .data(event));
+                subscription.lastSentId = event.getId();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping live stream of user {}: {}", subscription.userId, e.getMessage());
+            synchronized (subscription) {
+                subscription.closed = true;
+                subscription.queue.clear();
+            }
+            subscription.emitter.completeWithError(e);
+        }
+    }
+
+    static ActivityStreamEvent toEvent(ActivityFeed activity) {
+        return ActivityStreamEvent.builder()
+                .id(activity.getId())
+                .userId(activity.getUser().getId())
+                .activityType(activity.getActivityType())
+                .targetId(activity.getTargetId())
+                .targetType(activity.getTargetType())
+                .bookId(activity.getBookId())
+                .rating(activity.getRating())
+                .createdAt(activity.getCreatedAt())
+                .build();
+    }
+
+    static ActivityStreamEvent toEvent(long id, ActivityEvent activity) {
+        return ActivityStreamEvent.builder()
+                .id(id)
+                .userId(activity.userId())
+                .activityType(activity.activityType())
+                .targetId(activity.targetId())
+                .targetType(activity.targetType())
+                .bookId(activity.bookId())
+                .rating(activity.rating())
+                .createdAt(activity.createdAt())
+                .build();
+    }
+}
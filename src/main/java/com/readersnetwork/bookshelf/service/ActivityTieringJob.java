@@ -0,0 +1,129 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.repository.ActivityFeedRepository;
+import com.readersnetwork.bookshelf.repository.ArchivedActivityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hot/cold tiering for the activity_feed table.
+ *
+ * Strategy:
+ * - activity_feed only keeps the hot window (default 90 days), so its indexes stay small
+ * - Older rows are moved to activity_feed_archive in id-range chunks: one INSERT ... SELECT plus
+ *   one bulk DELETE per chunk, in the same short transaction, so a row is never in both tiers
+ * - Ids and timestamps are preserved, so offset pages and feed cursors stay valid across tiers
+ * - Runs on a cron schedule when enabled; a run never overlaps another
+ */
+@Component
+@Slf4j
+public class ActivityTieringJob {
+
+    private final ActivityFeedRepository activityFeedRepository;
+    private final ArchivedActivityRepository archivedActivityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter rowsArchived;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${bookshelf.tiering.enabled:false}")
+    private boolean enabled;
+
+    @Value("${bookshelf.tiering.hot-days:90}")
+    private int hotDays;
+
+    @Value("${bookshelf.tiering.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${bookshelf.tiering.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+
+    public ActivityTieringJob(ActivityFeedRepository activityFeedRepository,
+            ArchivedActivityRepository archivedActivityRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.activityFeedRepository = activityFeedRepository;
+        this.archivedActivityRepository = archivedActivityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rowsArchived = Counter.builder("bookshelf.tiering.rows.archived")
+                .description("Activity rows moved to the archive tier")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scheduled entry point (daily at 04:00 by default).
+     */
+    @Scheduled(cron = "${bookshelf.tiering.cron:0 0 4 * * *}")
+    public void runScheduled() {
+        if (!enabled) {
+            return;
+        }
+        archiveOlderThan(hotDays);
+    }
+
+    /**
+     * Move activities older than the given number of days to the archive tier.
+     *
+     * @return number of rows moved (0 if another run is in progress)
+     */
+    public int archiveOlderThan(int days) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("[Tiering] A run is already in progress. Skipping.");
+            return 0;
+        }
+        try {
+            return archive(LocalDateTime.now().minusDays(days));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int archive(LocalDateTime cutoff) {
+        List<Object[]> range = activityFeedRepository.findIdRangeCreatedBefore(cutoff);
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            return 0;
+        }
+
+        long minId = ((Number) range.get(0)[0]).longValue();
+        long maxId = ((Number) range.get(0)[1]).longValue();
+        log.info("[Tiering] Archiving activities created before {} (ids {}..{}, chunk size {})",
+                cutoff, minId, maxId, chunkSize);
+
+        int total = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+            long from = fromId;
+            long to = fromId + chunkSize;
+            Integer moved = transactionTemplate.execute(status -> {
+                int copied = archivedActivityRepository.copyChunkCreatedBefore(from, to, cutoff);
+                activityFeedRepository.deleteChunkCreatedBefore(from, to, cutoff);
+                return copied;
+            });
+            int chunkMoved = moved != null ? moved : 0;
+            total += chunkMoved;
+            rowsArchived.increment(chunkMoved);
+
+            if (chunkPauseMs > 0 && to <= maxId) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(chunkPauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("[Tiering] Interrupted after archiving {} rows.", total);
+                    break;
+                }
+            }
+        }
+
+        log.info("[Tiering] Archived {} activities.", total);
+        return total;
+    }
+}
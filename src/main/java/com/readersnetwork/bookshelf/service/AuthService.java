@@ -31,6 +31,9 @@ public class AuthService {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
     /**
      * Register a new user
      */
@@ -57,6 +60,7 @@ public class AuthService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User savedUser = userRepository.save(user);
+        userSearchIndex.indexAfterCommit(savedUser);
 
         // Generate JWT token
         String token = jwtTokenProvider.generateTokenFromUsername(savedUser.getUsername());
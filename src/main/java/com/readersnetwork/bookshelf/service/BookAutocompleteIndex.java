@@ -0,0 +1,377 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.dto.response.AutocompleteSuggestion;
+import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix index for search-as-you-type over book titles and authors, weighted by review count.
+ *
+ * Strategy:
+ * - Every completion (a distinct normalized title or author) is reachable from the start of each
+ *   of its first few words ("harry potter" matches "har" and "pot")
+ * - Keys live in one sorted array, so a prefix is a contiguous range found by binary search;
+ *   a segment tree over the weights pulls the top-k of that range without scanning it
+ * - The arrays are immutable and swapped as a whole; books added since the last build sit in a small
+ *   sorted overlay (key -> its completions), and deleted or edited ones are filtered out of the arrays
+ *   until the next build (an edited book's new text is in the overlay)
+ * - Rebuilt from one grouped query when the overlay fills up, after deletes and edits, and periodically
+ *   (which is also when review counts are refreshed)
+ */
+@Component
+@Slf4j
+public class BookAutocompleteIndex {
+
+    static final String TITLE = "TITLE";
+    static final String AUTHOR = "AUTHOR";
+
+    private static final int MAX_KEY_WORDS = 4;
+
+    private final BookRepository bookRepository;
+    private final Timer latency;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    /** Key -> (identity -> completion) of the books added or edited since the last build. */
+    private final ConcurrentSkipListMap<String, Map<String, Completion>> pending = new ConcurrentSkipListMap<>();
+    private final Set<Long> removedBookIds = ConcurrentHashMap.newKeySet();
+    /** Deleted or edited books: their title in the arrays is outdated. */
+    private final Set<Long> staleBookIds = ConcurrentHashMap.newKeySet();
+    private volatile long lastRebuildNanos = System.nanoTime();
+
+    @Value("${bookshelf.autocomplete.max-pending:1000}")
+    private int maxPending;
+
+    @Value("${bookshelf.autocomplete.refresh-ms:600000}")
+    private long refreshMs;
+
+    /** One suggestion; identity is (type, normalized text). */
+    private record Completion(String type, String text, Long bookId, long weight) {
+    }
+
+    public BookAutocompleteIndex(BookRepository bookRepository, MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.latency = Timer.builder("bookshelf.autocomplete.latency")
+                .description("Autocomplete lookup latency")
+                .register(meterRegistry);
+        meterRegistry.gauge("bookshelf.autocomplete.keys", this, index -> index.snapshot.keys.length);
+    }
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    /**
+     * Most reviewed titles and authors with a word starting with the prefix.
+     */
+    public List<AutocompleteSuggestion> complete(String prefix, int limit) {
+        String key = normalizePrefix(prefix);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            Map<String, Completion> found = new LinkedHashMap<>();
+            snapshot.top(key, limit, staleBookIds, found);
+            for (Map<String, Completion> completions : pending.subMap(key, key + Character.MAX_VALUE).values()) {
+                for (Completion completion : completions.values()) {
+                    if (completion.bookId() != null && removedBookIds.contains(completion.bookId())) {
+                        continue;
+                    }
+                    found.merge(identity(completion), completion,
+                            (existing, added) -> existing.weight() >= added.weight() ? existing : added);
+                }
+            }
+            return found.values().stream()
+                    .sorted(Comparator.comparingLong(Completion::weight).reversed()
+                            .thenComparing(Completion::text))
+                    .limit(limit)
+                    .map(BookAutocompleteIndex::toSuggestion)
+                    .toList();
+        } finally {
+            sample.stop(latency);
+        }
+    }
+
+    // ============================================
+    // MAINTENANCE
+    // ============================================
+
+    /**
+     * Make a new book completable once the surrounding transaction commits.
+     */
+    public void addAfterCommit(Book book) {
+        Long bookId = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        AfterCommit.run(() -> {
+            removedBookIds.remove(bookId);
+            addPending(new Completion(TITLE, title, bookId, 0));
+            addPending(new Completion(AUTHOR, author, null, 0));
+        });
+    }
+
+    /**
+     * Suggest an edited book under its new title only, once the surrounding transaction commits.
+     */
+    public void updateAfterCommit(Book book) {
+        Long bookId = book.getId();
+        AfterCommit.run(() -> staleBookIds.add(bookId));
+        addAfterCommit(book);
+    }
+
+    /**
+     * Stop suggesting a deleted book once the surrounding transaction commits.
+     */
+    public void removeAfterCommit(Long bookId) {
+        AfterCommit.run(() -> {
+            removedBookIds.add(bookId);
+            staleBookIds.add(bookId);
+        });
+    }
+
+    /**
+     * Fold the overlay and deletes into a fresh build when needed; refresh weights periodically.
+     */
+    @Scheduled(fixedDelayString = "${bookshelf.autocomplete.check-ms:5000}")
+    public void maintain() {
+        boolean due = System.nanoTime() - lastRebuildNanos > TimeUnit.MILLISECONDS.toNanos(refreshMs);
+        if (due || pending.size() >= maxPending || !staleBookIds.isEmpty()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the prefix index from the database and swap it in.
+     */
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        // Only what was already pending is covered by the scan below; later additions stay in the overlay
+        List<Map.Entry<String, Completion>> pendingBefore = new ArrayList<>();
+        pending.forEach((key, completions) -> completions.values()
+                .forEach(completion -> pendingBefore.add(Map.entry(key, completion))));
+        Set<Long> removedBefore = new HashSet<>(removedBookIds);
+        Set<Long> staleBefore = new HashSet<>(staleBookIds);
+
+        Map<String, Completion> titles = new HashMap<>();
+        Map<String, Completion> authors = new HashMap<>();
+        for (Object[] row : bookRepository.findTitleAuthorReviewCounts()) {
+            Long bookId = (Long) row[0];
+            String title = (String) row[1];
+            String author = (String) row[2];
+            long reviews = ((Number) row[3]).longValue();
+            String titleKey = normalize(title);
+            String authorKey = normalize(author);
+            if (!titleKey.isEmpty()) {
+                titles.merge(titleKey, new Completion(TITLE, title, bookId, reviews),
+                        (a, b) -> a.weight() >= b.weight() ? a : b);
+            }
+            if (!authorKey.isEmpty()) {
+                authors.merge(authorKey, new Completion(AUTHOR, author, null, reviews),
+                        (a, b) -> new Completion(AUTHOR, a.text(), null, a.weight() + b.weight()));
+            }
+        }
+        List<Completion> completions = new ArrayList<>(titles.values());
+        completions.addAll(authors.values());
+
+        snapshot = Snapshot.build(completions);
+        pendingBefore.forEach(entry -> removePending(entry.getKey(), entry.getValue()));
+        removedBookIds.removeAll(removedBefore);
+        staleBookIds.removeAll(staleBefore);
+        lastRebuildNanos = System.nanoTime();
+        log.info("Autocomplete index built: {} completions, {} keys in {} ms", completions.size(),
+                snapshot.keys.length, TimeUnit.NANOSECONDS.toMillis(lastRebuildNanos - started));
+    }
+
+    private void addPending(Completion completion) {
+        for (String key : keysOf(completion.text())) {
+            // By identity within a key, so a title and an author sharing a word do not collide
+            pending.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(identity(completion), completion);
+        }
+    }
+
+    private void removePending(String key, Completion completion) {
+        pending.computeIfPresent(key, (k, completions) -> {
+            completions.remove(identity(completion), completion);
+            return completions.isEmpty() ? null : completions;
+        });
+    }
+
+    // ============================================
+    // HELPER METHODS
+    // ============================================
+
+    /** Lower-cased, accent-free words joined by single spaces. */
+    private static String normalize(String text) {
+        return String.join(" ", BookSearchIndex.tokenize(text));
+    }
+
+    /** A trailing space means the last word is complete. */
+    private static String normalizePrefix(String prefix) {
+        String key = normalize(prefix);
+        return !key.isEmpty() && Character.isWhitespace(prefix.charAt(prefix.length() - 1)) ? key + ' ' : key;
+    }
+
+    /** The text from each of its first words on. */
+    private static List<String> keysOf(String text) {
+        List<String> words = BookSearchIndex.tokenize(text);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < words.size() && i < MAX_KEY_WORDS; i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return keys;
+    }
+
+    private static String identity(Completion completion) {
+        return completion.type() + ':' + normalize(completion.text());
+    }
+
+    private static AutocompleteSuggestion toSuggestion(Completion completion) {
+        return AutocompleteSuggestion.builder()
+                .text(completion.text())
+                .type(completion.type())
+                .bookId(completion.bookId())
+                .reviewCount(completion.weight())
+                .build();
+    }
+
+    // ============================================
+    // SNAPSHOT
+    // ============================================
+
+    /**
+     * Sorted keys, the completion each key belongs to, and a max segment tree over their weights.
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = build(List.of());
+
+        final String[] keys;
+        final Completion[] owners;
+        final int[] tree;
+
+        private Snapshot(String[] keys, Completion[] owners) {
+            this.keys = keys;
+            this.owners = owners;
+            int n = keys.length;
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        static Snapshot build(List<Completion> completions) {
+            List<Map.Entry<String, Completion>> entries = new ArrayList<>();
+            for (Completion completion : completions) {
+                for (String key : keysOf(completion.text())) {
+                    entries.add(Map.entry(key, completion));
+                }
+            }
+            entries.sort(Map.Entry.comparingByKey());
+            String[] keys = new String[entries.size()];
+            Completion[] owners = new Completion[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).getKey();
+                owners[i] = entries.get(i).getValue();
+            }
+            return new Snapshot(keys, owners);
+        }
+
+        /**
+         * Collect up to limit distinct completions for the prefix, heaviest first.
+         * Ranges are split around their heaviest key, so only O(limit) ranges are ever looked at.
+         */
+        void top(String prefix, int limit, Set<Long> staleBookIds, Map<String, Completion> out) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            if (from >= to) {
+                return;
+            }
+            PriorityQueue<int[]> ranges = new PriorityQueue<>(
+                    (a, b) -> Long.compare(owners[b[2]].weight(), owners[a[2]].weight()));
+            ranges.add(new int[] { from, to, argmax(from, to) });
+            while (!ranges.isEmpty() && out.size() < limit) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                Completion completion = owners[best];
+                if (completion.bookId() == null || !staleBookIds.contains(completion.bookId())) {
+                    out.putIfAbsent(identity(completion), completion);
+                }
+                if (range[0] < best) {
+                    ranges.add(new int[] { range[0], best, argmax(range[0], best) });
+                }
+                if (best + 1 < range[1]) {
+                    ranges.add(new int[] { best + 1, range[1], argmax(best + 1, range[1]) });
+                }
+            }
+        }
+
+        /** First position whose key is >= the given one (keys may repeat). */
+        private int lowerBound(String key) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** Index of the heaviest key in [from, to); ties go to the lexicographically first. */
+        private int argmax(int from, int to) {
+            int n = keys.length;
+            int best = -1;
+            for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    best = better(best, tree[l++]);
+                }
+                if ((r & 1) == 1) {
+                    best = better(best, tree[--r]);
+                }
+            }
+            return best;
+        }
+
+        private int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            long wa = owners[a].weight();
+            long wb = owners[b].weight();
+            return wb > wa || (wb == wa && b < a) ? b : a;
+        }
+    }
+}
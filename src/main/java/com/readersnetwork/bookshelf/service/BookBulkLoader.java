@@ -0,0 +1,283 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.entity.Genre;
+import com.readersnetwork.bookshelf.repository.BookRepository;
+import com.readersnetwork.bookshelf.service.BookIdentifierIndex.Key;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Bulk insert path for catalog ingestion (seeding).
+ *
+ * Strategy:
+ * - The canonical identifiers of every catalog book (see BookIdentifierIndex) are loaded into
+ *   memory once, so a fetched page is deduplicated without queries; books ingested here are added
+ *   to it, and an API edit or delete drops it so the next page reloads it
+ * - The new books of a page are inserted with one JDBC batch statement (Book ids are IDENTITY,
+ *   which turns off Hibernate's insert batching), their genre links and identifiers with one more
+ *   each, in one transaction; search structures are updated after it commits
+ * - If a batch fails (e.g. a book added meanwhile through the API path hits a unique key), the page
+ *   is retried book by book through the regular duplicate check and save
+ * - Meant for a single writer thread: calls are serialized
+ */
+@Component
+@Slf4j
+public class BookBulkLoader {
+
+    private static final String INSERT_BOOK_SQL = "INSERT INTO books "
+            + "(title, author, isbn, google_books_id, open_library_id, cover_url, description, published_year, "
+            + "genre, page_count, average_rating, publisher, language, source, is_verified, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_GENRE_LINK_SQL = "INSERT INTO book_genres (book_id, genre_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookRepository bookRepository;
+    private final GenreDictionary genreDictionary;
+    private final BookIdentifierIndex bookIdentifierIndex;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookAutocompleteIndex bookAutocompleteIndex;
+    private final CatalogQueryCache catalogQueryCache;
+
+    /** Canonical identifiers of the catalog, as "TYPE:value". */
+    private Set<String> identifiers = new HashSet<>();
+    private boolean loaded;
+
+    /** Outcome of one ingested page. */
+    public record Result(int saved, int skipped) {
+    }
+
+    public BookBulkLoader(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            BookRepository bookRepository,
+            GenreDictionary genreDictionary,
+            BookIdentifierIndex bookIdentifierIndex,
+            BookSearchIndex bookSearchIndex,
+            BookAutocompleteIndex bookAutocompleteIndex,
+            CatalogQueryCache catalogQueryCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookRepository = bookRepository;
+        this.genreDictionary = genreDictionary;
+        this.bookIdentifierIndex = bookIdentifierIndex;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookAutocompleteIndex = bookAutocompleteIndex;
+        this.catalogQueryCache = catalogQueryCache;
+    }
+
+    // ============================================
+    // PUBLIC API
+    // ============================================
+
+    /**
+     * Save the books of a page that are not in the catalog yet (nor earlier in the same page).
+     */
+    public Result ingest(List<Book> books) {
+        return ingest(books, null);
+    }
+
+    /**
+     * Same, and run {@code inTransaction} with the outcome in the transaction that inserts the page,
+     * so a record of it (e.g. a seed checkpoint) commits together with the books. Pages without new
+     * books, and pages retried book by book, run it in a transaction of its own.
+     */
+    public synchronized Result ingest(List<Book> books, Consumer<Result> inTransaction) {
+        if (!loaded) {
+            identifiers = bookIdentifierIndex.loadAll();
+            loaded = true;
+            log.info("Bulk loader identifiers loaded: {}", identifiers.size());
+        }
+
+        List<Book> fresh = new ArrayList<>(books.size());
+        Set<String> pageIdentifiers = new HashSet<>();
+        for (Book book : books) {
+            List<String> tokens = BookIdentifierIndex.keysOf(book).stream().map(BookBulkLoader::token).toList();
+            boolean duplicate = tokens.stream()
+                    .anyMatch(token -> identifiers.contains(token) || pageIdentifiers.contains(token));
+            if (!duplicate) {
+                pageIdentifiers.addAll(tokens);
+                fresh.add(book);
+            }
+        }
+        int skipped = books.size() - fresh.size();
+        if (fresh.isEmpty()) {
+            return record(new Result(0, skipped), inTransaction);
+        }
+
+        Result result = new Result(fresh.size(), skipped);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insertBatch(fresh);
+                if (inTransaction != null) {
+                    inTransaction.accept(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Batch insert of {} books failed ({}); retrying one by one", fresh.size(), e.getMessage());
+            return record(saveOneByOne(fresh, skipped), inTransaction);
+        }
+        fresh.forEach(this::remember);
+        return result;
+    }
+
+    /**
+     * Forget the preloaded identifiers once the surrounding transaction (which edited or deleted
+     * catalog books) commits; they are reloaded on the next ingest.
+     */
+    public void resetAfterCommit() {
+        AfterCommit.run(this::reset);
+    }
+
+    private synchronized void reset() {
+        identifiers = new HashSet<>();
+        loaded = false;
+    }
+
+    // ============================================
+    // HELPER METHODS
+    // ============================================
+
+    private void insertBatch(List<Book> books) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Set<Genre>> genres = new ArrayList<>(books.size());
+        for (Book book : books) {
+            genres.add(genreDictionary.resolve(book.getGenre()));
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_BOOK_SQL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, books.get(i), now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return books.size();
+                    }
+                },
+                keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != books.size()) {
+            throw new IllegalStateException("Expected " + books.size() + " generated ids, got " + keys.size());
+        }
+
+        List<Object[]> links = new ArrayList<>();
+        List<Key> identifierKeys = new ArrayList<>();
+        List<Long> identifierBookIds = new ArrayList<>();
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            book.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            if (book.getCreatedAt() == null) {
+                book.setCreatedAt(now); // snapshot imports keep their original time
+            }
+            book.setGenres(genres.get(i));
+            for (Genre genre : genres.get(i)) {
+                links.add(new Object[] { book.getId(), genre.getId() });
+            }
+            for (Key key : BookIdentifierIndex.keysOf(book)) {
+                identifierKeys.add(key);
+                identifierBookIds.add(book.getId());
+            }
+        }
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_GENRE_LINK_SQL, links);
+        }
+        bookIdentifierIndex.insertBatch(identifierKeys, identifierBookIds);
+
+        for (Book book : books) {
+            bookSearchIndex.indexAfterCommit(book);
+            bookAutocompleteIndex.addAfterCommit(book);
+        }
+        catalogQueryCache.catalogChangedAfterCommit();
+    }
+
+    private Result saveOneByOne(List<Book> books, int skipped) {
+        int saved = 0;
+        for (Book book : books) {
+            book.setId(null);
+            try {
+                boolean isSaved = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    if (bookIdentifierIndex.findDuplicate(book).isPresent()) {
+                        return false;
+                    }
+                    book.setGenres(genreDictionary.resolve(book.getGenre()));
+                    Book stored = bookRepository.save(book);
+                    bookIdentifierIndex.register(stored);
+                    bookSearchIndex.indexAfterCommit(stored);
+                    bookAutocompleteIndex.addAfterCommit(stored);
+                    catalogQueryCache.catalogChangedAfterCommit();
+                    return true;
+                }));
+
+                if (isSaved) {
+                    saved++;
+                } else {
+                    skipped++;
+                }
+                remember(book);
+            } catch (RuntimeException e) {
+                log.debug("Failed to save book '{}': {}", book.getTitle(), e.getMessage());
+                skipped++;
+            }
+        }
+        return new Result(saved, skipped);
+    }
+
+    private Result record(Result result, Consumer<Result> inTransaction) {
+        if (inTransaction != null) {
+            transactionTemplate.executeWithoutResult(status -> inTransaction.accept(result));
+        }
+        return result;
+    }
+
+    private void remember(Book book) {
+        for (Key key : BookIdentifierIndex.keysOf(book)) {
+            identifiers.add(token(key));
+        }
+    }
+
+    private static String token(Key key) {
+        return key.type().name() + ':' + key.value();
+    }
+
+    private static void bind(PreparedStatement ps, Book book, LocalDateTime createdAt) throws SQLException {
+        ps.setString(1, book.getTitle());
+        ps.setString(2, book.getAuthor());
+        ps.setString(3, book.getIsbn());
+        ps.setString(4, book.getGoogleBooksId());
+        ps.setString(5, book.getOpenLibraryId());
+        ps.setString(6, book.getCoverUrl());
+        ps.setString(7, book.getDescription());
+        ps.setObject(8, book.getPublishedYear(), Types.INTEGER);
+        ps.setString(9, book.getGenre());
+        ps.setObject(10, book.getPageCount(), Types.INTEGER);
+        ps.setObject(11, book.getAverageRating(), Types.DOUBLE);
+        ps.setString(12, book.getPublisher());
+        ps.setString(13, book.getLanguage());
+        ps.setString(14, book.getSource() != null ? book.getSource().name() : null);
+        ps.setObject(15, book.getIsVerified(), Types.BOOLEAN);
+        ps.setTimestamp(16, Timestamp.valueOf(book.getCreatedAt() != null ? book.getCreatedAt() : createdAt));
+    }
+}
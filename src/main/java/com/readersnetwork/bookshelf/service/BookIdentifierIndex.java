@@ -0,0 +1,279 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.entity.BookIdentifier;
+import com.readersnetwork.bookshelf.entity.IdentifierType;
+import com.readersnetwork.bookshelf.repository.BookIdentifierRepository;
+import com.readersnetwork.bookshelf.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical identifiers of every catalog book (book_identifiers), for duplicate checks by point lookup.
+ *
+ * - ISBN-10 and ISBN-13 are both stored as ISBN-13 (hyphens and spaces dropped, ISBN-10 converted
+ *   with the 978 prefix), so the two forms of one edition match; isbn values that are neither are
+ *   kept trimmed (ISBN_RAW), so they still match themselves
+ * - Google Books and Open Library ids are stored trimmed
+ * - Title + author are reduced to a fingerprint: SHA-256 of the lower-cased, accent-free words of
+ *   each, so "The Hobbit " / "J.R.R. Tolkien" and "the hobbit" / "J. R. R. Tolkien" match
+ * - (value, type) is unique: the first book registered with an identifier owns it
+ * - Kept current by the write paths (BookService, BookBulkLoader); books without identifiers
+ *   (added before this table existed) are registered at startup
+ */
+@Component
+@Slf4j
+public class BookIdentifierIndex {
+
+    private static final Pattern ISBN_SEPARATORS = Pattern.compile("[\\s-]");
+    private static final Pattern ISBN_13 = Pattern.compile("97[89]\\d{10}");
+    private static final Pattern ISBN_10 = Pattern.compile("\\d{9}[\\dX]");
+    private static final String INSERT_SQL = "INSERT INTO book_identifiers (id_type, id_value, book_id) VALUES (?, ?, ?)";
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private final BookIdentifierRepository identifierRepository;
+    private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** One canonical identifier. */
+    public record Key(IdentifierType type, String value) {
+    }
+
+    public BookIdentifierIndex(BookIdentifierRepository identifierRepository, BookRepository bookRepository,
+            JdbcTemplate jdbcTemplate) {
+        this.identifierRepository = identifierRepository;
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void init() {
+        int registered = registerMissing();
+        if (registered > 0) {
+            log.info("Book identifier index: registered {} identifiers of existing books", registered);
+        }
+    }
+
+    // ============================================
+    // LOOKUPS
+    // ============================================
+
+    /**
+     * The catalog book sharing an identifier with the candidate (ISBN first, title + author last).
+     */
+    public Optional<Book> findDuplicate(Book candidate) {
+        List<Key> keys = keysOf(candidate);
+        Map<Key, Long> owners = owners(keys);
+        for (Key key : keys) {
+            Long bookId = owners.get(key);
+            if (bookId != null) {
+                return bookRepository.findById(bookId);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * True if a catalog book has this ISBN, in either its 10- or 13-digit form.
+     */
+    public boolean existsByIsbn(String isbn) {
+        Key key = isbnKey(isbn);
+        return key != null && !owners(List.of(key)).isEmpty();
+    }
+
+    // ============================================
+    // MAINTENANCE
+    // ============================================
+
+    /**
+     * Replace a saved book's identifiers (in the caller's transaction). Identifiers already owned
+     * by another book are left to it.
+     */
+    public void register(Book book) {
+        identifierRepository.deleteByBookId(book.getId());
+        List<Key> keys = keysOf(book);
+        Map<Key, Long> owners = owners(keys);
+        List<BookIdentifier> identifiers = new ArrayList<>();
+        for (Key key : keys) {
+            if (!owners.containsKey(key)) {
+                identifiers.add(BookIdentifier.builder()
+                        .type(key.type())
+                        .value(key.value())
+                        .bookId(book.getId())
+                        .build());
+            }
+        }
+        identifierRepository.saveAll(identifiers);
+    }
+
+    /**
+     * Drop a deleted book's identifiers (in the caller's transaction).
+     */
+    public void remove(Long bookId) {
+        identifierRepository.deleteByBookId(bookId);
+    }
+
+    /**
+     * Insert identifier rows with one JDBC batch (bulk loads; keys must be free).
+     */
+    public void insertBatch(List<Key> keys, List<Long> bookIds) {
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            rows.add(new Object[] { keys.get(i).type().name(), keys.get(i).value(), bookIds.get(i) });
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    /**
+     * Every registered identifier, as "TYPE:value" (bulk loads dedupe against it in memory).
+     */
+    public Set<String> loadAll() {
+        Set<String> all = new HashSet<>();
+        jdbcTemplate.query("SELECT id_type, id_value FROM book_identifiers",
+                rs -> {
+                    all.add(rs.getString(1) + ':' + rs.getString(2));
+                });
+        return all;
+    }
+
+    // ============================================
+    // CANONICALIZATION
+    // ============================================
+
+    /**
+     * Canonical identifiers of a book, most specific first.
+     */
+    public static List<Key> keysOf(Book book) {
+        List<Key> keys = new ArrayList<>(4);
+        Key isbn = isbnKey(book.getIsbn());
+        if (isbn != null) {
+            keys.add(isbn);
+        }
+        if (book.getGoogleBooksId() != null && !book.getGoogleBooksId().isBlank()) {
+            keys.add(new Key(IdentifierType.GOOGLE_BOOKS, book.getGoogleBooksId().trim()));
+        }
+        if (book.getOpenLibraryId() != null && !book.getOpenLibraryId().isBlank()) {
+            keys.add(new Key(IdentifierType.OPEN_LIBRARY, book.getOpenLibraryId().trim()));
+        }
+        if (book.getTitle() != null && !book.getTitle().isBlank()) {
+            keys.add(new Key(IdentifierType.TITLE_AUTHOR, fingerprint(book.getTitle(), book.getAuthor())));
+        }
+        return keys;
+    }
+
+    /**
+     * ISBN_13 key of a valid ISBN, ISBN_RAW key of any other non-blank value, or null.
+     */
+    public static Key isbnKey(String isbn) {
+        String canonical = canonicalIsbn(isbn);
+        if (canonical != null) {
+            return new Key(IdentifierType.ISBN_13, canonical);
+        }
+        return isbn != null && !isbn.isBlank() ? new Key(IdentifierType.ISBN_RAW, isbn.trim()) : null;
+    }
+
+    /**
+     * ISBN-13 form of an ISBN-10 or ISBN-13, or null if it is neither.
+     */
+    public static String canonicalIsbn(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        String compact = ISBN_SEPARATORS.matcher(isbn).replaceAll("").toUpperCase(Locale.ROOT);
+        if (ISBN_13.matcher(compact).matches()) {
+            return compact;
+        }
+        if (ISBN_10.matcher(compact).matches()) {
+            String body = "978" + compact.substring(0, 9);
+            int sum = 0;
+            for (int i = 0; i < body.length(); i++) {
+                sum += (body.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+            }
+            return body + (10 - sum % 10) % 10;
+        }
+        return null;
+    }
+
+    /**
+     * SHA-256 (hex) of the normalized title and author words.
+     */
+    public static String fingerprint(String title, String author) {
+        String normalized = String.join(" ", BookSearchIndex.tokenize(title))
+                + '\u0000' + String.join(" ", BookSearchIndex.tokenize(author));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // ============================================
+    // HELPER METHODS
+    // ============================================
+
+    private Map<Key, Long> owners(List<Key> keys) {
+        Map<Key, Long> owners = new HashMap<>();
+        if (keys.isEmpty()) {
+            return owners;
+        }
+        Set<Key> wanted = new HashSet<>(keys);
+        for (BookIdentifier identifier : identifierRepository.findByValueIn(keys.stream().map(Key::value).toList())) {
+            Key key = new Key(identifier.getType(), identifier.getValue());
+            if (wanted.contains(key)) {
+                owners.put(key, identifier.getBookId());
+            }
+        }
+        return owners;
+    }
+
+    private int registerMissing() {
+        Set<String> taken = loadAll();
+        List<Key> keys = new ArrayList<>();
+        List<Long> bookIds = new ArrayList<>();
+        int[] registered = { 0 };
+        jdbcTemplate.query("SELECT b.id, b.isbn, b.google_books_id, b.open_library_id, b.title, b.author "
+                + "FROM books b WHERE NOT EXISTS (SELECT 1 FROM book_identifiers bi WHERE bi.book_id = b.id) "
+                + "ORDER BY b.id", rs -> {
+                    Book book = new Book();
+                    book.setIsbn(rs.getString(2));
+                    book.setGoogleBooksId(rs.getString(3));
+                    book.setOpenLibraryId(rs.getString(4));
+                    book.setTitle(rs.getString(5));
+                    book.setAuthor(rs.getString(6));
+                    for (Key key : keysOf(book)) {
+                        // Older duplicates keep no identifier of their own
+                        if (taken.add(key.type().name() + ':' + key.value())) {
+                            keys.add(key);
+                            bookIds.add(rs.getLong(1));
+                        }
+                    }
+                    if (keys.size() >= BACKFILL_BATCH_SIZE) {
+                        insertBatch(keys, bookIds);
+                        registered[0] += keys.size();
+                        keys.clear();
+                        bookIds.clear();
+                    }
+                });
+        insertBatch(keys, bookIds);
+        return registered[0] + keys.size();
+    }
+}
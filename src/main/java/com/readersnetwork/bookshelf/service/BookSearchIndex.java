@@ -0,0 +1,1259 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.repository.BookRepository;
+import com.readersnetwork.bookshelf.repository.ReviewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the book catalog (title, author, genre, publisher, description).
+ *
+ * Strategy:
+ * - Text is lower-cased, stripped of accents and split into alphanumeric tokens
+ * - Each (field, token) pair maps to a sorted array of book ids; terms are kept in a sorted map,
+ *   so the last token of a query also matches as a prefix (search-as-you-type)
+ * - A query matches books containing every token (AND), in any of the searched fields
+ * - Free-text matches are ranked by BM25 computed per field and summed with field boosts
+ *   (title > author > genre/description > publisher); ties go to the book with more reviews,
+ *   then the better average review rating
+ * - Kept up to date by BookService after each commit; built from the database in the background
+ *   at startup and rebuilt on demand (writes that happen during a build are replayed afterwards)
+ * - Title and author terms are also indexed by their character trigrams, so misspelled queries
+ *   ("Tolkein", "Harry Poter") still find ranked candidates within a small time budget
+ * - Genre, year, language and source values each keep a bitmap of book ids; facet counts are the
+ *   popcounts of (result bitmap AND value bitmap), and drill-down filters are plain ANDs
+ * - Genres are dictionary entries (see GenreDictionary), so a book can be in several and genre
+ *   filters match whole genres; browsing a genre lists its books by popularity (review count,
+ *   then average rating), an order computed on first use and kept until one of its books changes
+ * - Until the first build finishes, callers fall back to the SQL queries
+ * - Metrics: bookshelf.search.index.documents / .terms gauges, bookshelf.search.latency timer,
+ *   bookshelf.search.fuzzy.budget.exceeded counter
+ */
+@Component
+@Slf4j
+public class BookSearchIndex {
+
+    static final String TITLE = "t";
+    static final String AUTHOR = "a";
+    static final String GENRE = "g";
+    static final String PUBLISHER = "p";
+    static final String DESCRIPTION = "d";
+
+    private static final List<String> ALL_FIELDS = List.of(TITLE, AUTHOR, GENRE, PUBLISHER, DESCRIPTION);
+    /** Relevance weight of a match in each field, in ALL_FIELDS order. */
+    private static final double[] FIELD_BOOSTS = { 3.0, 2.0, 1.0, 0.5, 1.0 };
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    /** Prefix completions of the last query token that take part in scoring. */
+    private static final int MAX_SCORED_EXPANSIONS = 64;
+    private static final Set<String> FUZZY_FIELDS = Set.of(TITLE, AUTHOR);
+
+    public static final String FACET_GENRE = "genre";
+    public static final String FACET_YEAR = "year";
+    public static final String FACET_LANGUAGE = "language";
+    public static final String FACET_SOURCE = "source";
+    private static final List<String> FACETS = List.of(FACET_GENRE, FACET_YEAR, FACET_LANGUAGE, FACET_SOURCE);
+    /** Single-valued facets, in the order of Document.facetValues (genres are kept by id). */
+    private static final List<String> VALUE_FACETS = List.of(FACET_YEAR, FACET_LANGUAGE, FACET_SOURCE);
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final Comparator<Ranked> RANKING = Comparator.comparingDouble(Ranked::score).reversed()
+            .thenComparing(Comparator.comparingInt(Ranked::reviews).reversed())
+            .thenComparing(Comparator.comparingDouble(Ranked::averageRating).reversed())
+            .thenComparingLong(Ranked::id);
+
+    private final BookRepository bookRepository;
+    private final ReviewRepository reviewRepository;
+    private final GenreDictionary genreDictionary;
+    private final CatalogQueryCache catalogQueryCache;
+    private final Timer searchLatency;
+    private final Timer advancedSearchLatency;
+    private final Timer fuzzySearchLatency;
+    private final Timer facetedSearchLatency;
+    private final Timer genreLatency;
+    private final Counter fuzzyBudgetExceeded;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private Map<Long, Document> documents = new HashMap<>();
+    /** Trigram -> title/author terms containing it. */
+    private Map<String, Set<String>> trigrams = new HashMap<>();
+    /** Facet -> value -> ids of books having it. */
+    private Map<String, Map<String, IdBitmap>> facets = emptyFacets();
+    /** Genre id -> ids of books in it. */
+    private Map<Long, IdBitmap> genres = new HashMap<>();
+    /** Genre id -> its book ids by popularity; dropped when a member book or its popularity changes. */
+    private final Map<Long, long[]> genreRankings = new ConcurrentHashMap<>();
+    private IdBitmap allBooks = new IdBitmap();
+    /** Sum of field lengths (in tokens) over all books, in ALL_FIELDS order. */
+    private long[] fieldLengthTotals = new long[ALL_FIELDS.size()];
+    private volatile Map<Long, Popularity> popularity = new ConcurrentHashMap<>();
+
+    @Value("${bookshelf.search.fuzzy.min-similarity:0.45}")
+    private double fuzzyMinSimilarity;
+
+    @Value("${bookshelf.search.fuzzy.max-expansions:20}")
+    private int fuzzyMaxExpansions;
+
+    @Value("${bookshelf.search.fuzzy.budget-ms:30}")
+    private long fuzzyBudgetMs;
+
+    @Value("${bookshelf.search.fuzzy.match-similarity:0.8}")
+    private double fuzzyMatchSimilarity;
+
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile LocalDateTime lastRebuildAt;
+    private volatile long lastRebuildMillis;
+
+    /**
+     * Indexed terms of one book (field-qualified, sorted) with their frequencies, field lengths
+     * and filterable attributes.
+     */
+    private record Document(String[] terms, int[] termFreqs, int[] fieldLengths, Integer publishedYear,
+            String[] facetValues, long[] genreIds) {
+
+        int termFreq(String term) {
+            int pos = Arrays.binarySearch(terms, term);
+            return pos >= 0 ? termFreqs[pos] : 0;
+        }
+    }
+
+    /** Review count and average review rating of one book (ranking tie-breakers). */
+    private record Popularity(int reviews, double averageRating) {
+        static final Popularity NONE = new Popularity(0, 0.0);
+
+        Popularity plus(int reviewDelta, int ratingDelta) {
+            int count = reviews + reviewDelta;
+            return count <= 0 ? NONE : new Popularity(count, (averageRating * reviews + ratingDelta) / count);
+        }
+    }
+
+    private record QueryTerm(String term, int field, double weight) {
+    }
+
+    private record Ranked(long id, double score, int reviews, double averageRating) {
+    }
+
+    /** One page of matches plus value counts per facet over all matches. */
+    public record FacetedPage(Page<Book> page, Map<String, Map<String, Integer>> facets) {
+    }
+
+    public BookSearchIndex(BookRepository bookRepository, ReviewRepository reviewRepository,
+            GenreDictionary genreDictionary, CatalogQueryCache catalogQueryCache, MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.reviewRepository = reviewRepository;
+        this.genreDictionary = genreDictionary;
+        this.catalogQueryCache = catalogQueryCache;
+        this.searchLatency = Timer.builder("bookshelf.search.latency")
+                .tag("query", "search")
+                .description("Book search latency (index lookup and entity fetch)")
+                .register(meterRegistry);
+        this.advancedSearchLatency = Timer.builder("bookshelf.search.latency")
+                .tag("query", "advanced")
+                .description("Book search latency (index lookup and entity fetch)")
+                .register(meterRegistry);
+        this.fuzzySearchLatency = Timer.builder("bookshelf.search.latency")
+                .tag("query", "fuzzy")
+                .description("Book search latency (index lookup and entity fetch)")
+                .register(meterRegistry);
+        this.facetedSearchLatency = Timer.builder("bookshelf.search.latency")
+                .tag("query", "faceted")
+                .description("Book search latency (index lookup and entity fetch)")
+                .register(meterRegistry);
+        this.genreLatency = Timer.builder("bookshelf.search.latency")
+                .tag("query", "genre")
+                .description("Book search latency (index lookup and entity fetch)")
+                .register(meterRegistry);
+        this.fuzzyBudgetExceeded = Counter.builder("bookshelf.search.fuzzy.budget.exceeded")
+                .description("Fuzzy searches cut short by the time budget")
+                .register(meterRegistry);
+        meterRegistry.gauge("bookshelf.search.index.documents", this, index -> index.documentCount());
+        meterRegistry.gauge("bookshelf.search.index.terms", this, index -> index.termCount());
+    }
+
+    /**
+     * Build the index in the background so startup does not wait for a catalog scan; writes
+     * committed meanwhile are recorded and replayed like during any rebuild.
+     */
+    @PostConstruct
+    void init() {
+        rebuilding = true;
+        Thread builder = new Thread(this::build, "book-search-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    private void build() {
+        try {
+            rebuild();
+            // Results cached from the SQL fallback meanwhile are not served again
+            catalogQueryCache.catalogChangedAfterCommit();
+        } catch (RuntimeException e) {
+            rebuilding = false;
+            log.error("Book search index build failed; searches stay on SQL until a rebuild succeeds", e);
+        }
+    }
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    /**
+     * Books matching every token of the query in any indexed field, most relevant first.
+     *
+     * @return the page, or empty if the index is not built yet (caller should query the database)
+     */
+    public Optional<Page<Book>> search(String query, Pageable pageable) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            long[] ids;
+            lock.readLock().lock();
+            try {
+                ids = rank(matchAll(query, ALL_FIELDS), query, ALL_FIELDS);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return Optional.of(page(ids, pageable));
+        } finally {
+            sample.stop(searchLatency);
+        }
+    }
+
+    /**
+     * Books matching all given criteria; null criteria are ignored.
+     *
+     * @return the page, or empty if the index is not built yet or no criterion is given
+     */
+    public Optional<Page<Book>> advancedSearch(String title, String author, String genre, Integer year,
+            Pageable pageable) {
+        if (!ready || (isBlank(title) && isBlank(author) && isBlank(genre))) {
+            return Optional.empty();
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            long[] ids = null;
+            lock.readLock().lock();
+            try {
+                if (!isBlank(title)) {
+                    ids = intersect(ids, matchAll(title, List.of(TITLE)));
+                }
+                if (!isBlank(author)) {
+                    ids = intersect(ids, matchAll(author, List.of(AUTHOR)));
+                }
+                if (!isBlank(genre)) {
+                    ids = intersect(ids, genreBitmap(genre).toArray());
+                }
+                if (year != null) {
+                    ids = filter(ids, id -> year.equals(documents.get(id).publishedYear()));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return Optional.of(page(ids, pageable));
+        } finally {
+            sample.stop(advancedSearchLatency);
+        }
+    }
+
+    /**
+     * Books matching the (optional) query and every facet filter, with the most frequent values of
+     * each facet among them. Ranked like search() when there is a query.
+     *
+     * @param filters facet name -> required value (see FACET_*)
+     * @return the page and counts, or empty if the index is not built yet
+     */
+    public Optional<FacetedPage> facetedSearch(String query, Map<String, String> filters, int maxValuesPerFacet,
+            Pageable pageable) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            long[] ids;
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            lock.readLock().lock();
+            try {
+                IdBitmap result = isBlank(query) ? allBooks.copy() : IdBitmap.of(matchAll(query, ALL_FIELDS));
+                filters.forEach((facet, value) -> result.and(facetBitmap(facet, value)));
+                for (String facet : FACETS) {
+                    Map<String, IdBitmap> values = FACET_GENRE.equals(facet) ? genresByName() : facets.get(facet);
+                    counts.put(facet, countValues(result, values, maxValuesPerFacet));
+                }
+                ids = isBlank(query) ? result.toArray() : rank(result.toArray(), query, ALL_FIELDS);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return Optional.of(new FacetedPage(page(ids, pageable), counts));
+        } finally {
+            sample.stop(facetedSearchLatency);
+        }
+    }
+
+    /**
+     * Books in a genre (matched by name, ignoring case and accents), most reviewed first, then
+     * best rated.
+     *
+     * @return the page, or empty if the index is not built yet
+     */
+    public Optional<Page<Book>> byGenre(String genre, Pageable pageable) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            long[] ids;
+            lock.readLock().lock();
+            try {
+                ids = genreDictionary.idOf(genre).map(this::genreRanking).orElse(new long[0]);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return Optional.of(page(ids, pageable));
+        } finally {
+            sample.stop(genreLatency);
+        }
+    }
+
+    /**
+     * Typo-tolerant title/author search: each query token is expanded to the indexed terms with the
+     * most similar trigrams, and books matching every token are ranked by average similarity.
+     * Best effort: when the time budget runs out, the tokens scored so far decide the ranking.
+     *
+     * @return the page of candidates (best first, total = all similar enough books); empty if
+     *         nothing is similar enough or the index is not built yet
+     */
+    public Page<Book> fuzzySearch(String query, Pageable pageable) {
+        FuzzyScores fuzzy = fuzzyScores(query);
+        if (fuzzy.scores().isEmpty()) {
+            return Page.empty(pageable);
+        }
+        long[] ids = fuzzy.scores().entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        return page(ids, pageable);
+    }
+
+    /**
+     * The one catalog book that a misspelled title/author query clearly means: every token was
+     * scored, and exactly one book reaches an average similarity of {@code match-similarity}
+     * (stricter than the candidate threshold). Empty when that is not certain.
+     */
+    public Optional<Book> fuzzyMatch(String query) {
+        FuzzyScores fuzzy = fuzzyScores(query);
+        if (!fuzzy.complete()) {
+            return Optional.empty();
+        }
+        long match = -1;
+        for (Map.Entry<Long, Double> entry : fuzzy.scores().entrySet()) {
+            if (entry.getValue() / fuzzy.tokens() >= fuzzyMatchSimilarity) {
+                if (match >= 0) {
+                    return Optional.empty(); // several similar books: not a match
+                }
+                match = entry.getKey();
+            }
+        }
+        return match >= 0 ? bookRepository.findById(match) : Optional.empty();
+    }
+
+    /** Summed best similarity per book over the scored tokens; complete if no token was skipped. */
+    private record FuzzyScores(Map<Long, Double> scores, int tokens, boolean complete) {
+    }
+
+    private FuzzyScores fuzzyScores(String query) {
+        List<String> tokens = tokenize(query);
+        if (!ready || tokens.isEmpty()) {
+            return new FuzzyScores(Map.of(), 0, false);
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fuzzyBudgetMs);
+            Map<Long, Double> scores = null;
+            int scored = 0;
+            lock.readLock().lock();
+            try {
+                for (String token : tokens) {
+                    if (scored > 0 && System.nanoTime() > deadline) {
+                        break;
+                    }
+                    Map<Long, Double> matches = fuzzyMatchToken(token, deadline);
+                    if (scores == null) {
+                        scores = matches;
+                    } else {
+                        scores.keySet().retainAll(matches.keySet());
+                        scores.replaceAll((id, score) -> score + matches.get(id));
+                    }
+                    scored++;
+                    if (scores.isEmpty()) {
+                        break;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            boolean withinBudget = System.nanoTime() <= deadline;
+            if (!withinBudget) {
+                fuzzyBudgetExceeded.increment();
+            }
+            if (scores == null || scores.isEmpty()) {
+                return new FuzzyScores(Map.of(), scored, false);
+            }
+            log.debug("Fuzzy search '{}': {} candidates from {}/{} tokens", query, scores.size(), scored,
+                    tokens.size());
+            return new FuzzyScores(scores, scored, withinBudget && scored == tokens.size());
+        } finally {
+            sample.stop(fuzzySearchLatency);
+        }
+    }
+
+    // ============================================
+    // MAINTENANCE
+    // ============================================
+
+    /**
+     * (Re)index a book once the surrounding transaction commits.
+     */
+    public void indexAfterCommit(Book book) {
+        long id = book.getId();
+        Document document = toDocument(book);
+        AfterCommit.run(() -> put(id, document));
+    }
+
+    /**
+     * Drop a book from the index once the surrounding transaction commits.
+     */
+    public void removeAfterCommit(Long bookId) {
+        AfterCommit.run(() -> put(bookId, null));
+    }
+
+    /**
+     * Update a book's review count and average rating once the surrounding transaction commits
+     * (review posted: +1 / +rating, deleted: -1 / -rating, rating edited: 0 / new - old).
+     */
+    public void reviewChangedAfterCommit(Long bookId, int reviewDelta, int ratingDelta) {
+        AfterCommit.run(() -> {
+            if (rebuilding) {
+                touchedDuringRebuild.add(bookId);
+            }
+            popularity.compute(bookId,
+                    (id, current) -> (current != null ? current : Popularity.NONE).plus(reviewDelta, ratingDelta));
+            lock.readLock().lock();
+            try {
+                Document document = documents.get(bookId);
+                if (document != null) {
+                    dropGenreRankings(document);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Rebuild the whole index from the database and swap it in.
+     *
+     * @return index statistics after the rebuild
+     */
+    public synchronized Map<String, Object> rebuild() {
+        long started = System.nanoTime();
+        rebuilding = true;
+        touchedDuringRebuild.clear();
+
+        NavigableMap<String, PostingList> newPostings = new TreeMap<>();
+        Map<Long, Document> newDocuments = new HashMap<>();
+        Map<String, Set<String>> newTrigrams = new HashMap<>();
+        Map<String, Map<String, IdBitmap>> newFacets = emptyFacets();
+        Map<Long, IdBitmap> newGenres = new HashMap<>();
+        IdBitmap newAllBooks = new IdBitmap();
+        long[] newFieldLengthTotals = new long[ALL_FIELDS.size()];
+        Map<Long, Popularity> newPopularity = new ConcurrentHashMap<>();
+        for (Object[] row : reviewRepository.findReviewStatsByBook()) {
+            newPopularity.put((Long) row[0],
+                    new Popularity(((Number) row[1]).intValue(), ((Number) row[2]).doubleValue()));
+        }
+        Pageable pageable = PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id"));
+        Page<Book> page;
+        do {
+            page = bookRepository.findAll(pageable);
+            for (Book book : page.getContent()) {
+                Document document = toDocument(book);
+                newDocuments.put(book.getId(), document);
+                addPostings(newPostings, newTrigrams, book.getId(), document);
+                addFacets(newFacets, newGenres, book.getId(), document);
+                newAllBooks.set(book.getId());
+                addFieldLengths(newFieldLengthTotals, document, 1);
+            }
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            documents = newDocuments;
+            trigrams = newTrigrams;
+            facets = newFacets;
+            genres = newGenres;
+            genreRankings.clear();
+            allBooks = newAllBooks;
+            fieldLengthTotals = newFieldLengthTotals;
+            popularity = newPopularity;
+            rebuilding = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Replay writes that raced with the scan
+        for (Long id : touchedDuringRebuild) {
+            put(id, bookRepository.findById(id).map(this::toDocument).orElse(null));
+            long reviews = reviewRepository.countByBookId(id);
+            Double averageRating = reviewRepository.findAverageRatingForBook(id);
+            popularity.put(id, reviews > 0 && averageRating != null
+                    ? new Popularity((int) reviews, averageRating)
+                    : Popularity.NONE);
+        }
+        touchedDuringRebuild.clear();
+        genreRankings.clear();
+
+        ready = true;
+        lastRebuildAt = LocalDateTime.now();
+        lastRebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Book search index built: {} books, {} terms in {} ms",
+                documentCount(), termCount(), lastRebuildMillis);
+        return stats();
+    }
+
+    /**
+     * Index size, rebuild and latency figures (admin / monitoring).
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("documents", documentCount());
+        stats.put("terms", termCount());
+        stats.put("trigrams", trigramCount());
+        stats.put("genres", genreDictionary.size());
+        stats.put("lastRebuildAt", lastRebuildAt);
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        stats.put("searches", searchLatency.count() + advancedSearchLatency.count());
+        stats.put("searchMeanMillis", searchLatency.mean(TimeUnit.MILLISECONDS));
+        stats.put("searchMaxMillis", searchLatency.max(TimeUnit.MILLISECONDS));
+        stats.put("advancedSearchMeanMillis", advancedSearchLatency.mean(TimeUnit.MILLISECONDS));
+        stats.put("advancedSearchMaxMillis", advancedSearchLatency.max(TimeUnit.MILLISECONDS));
+        stats.put("fuzzySearches", fuzzySearchLatency.count());
+        stats.put("fuzzySearchMeanMillis", fuzzySearchLatency.mean(TimeUnit.MILLISECONDS));
+        stats.put("fuzzyBudgetExceeded", (long) fuzzyBudgetExceeded.count());
+        return stats;
+    }
+
+    private int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return trigrams.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(long id, Document document) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                touchedDuringRebuild.add(id);
+            }
+            Document previous = document != null ? documents.put(id, document) : documents.remove(id);
+            if (previous != null) {
+                for (String term : previous.terms()) {
+                    PostingList list = postings.get(term);
+                    if (list != null && list.remove(id) && list.isEmpty()) {
+                        postings.remove(term);
+                        removeTrigrams(trigrams, term);
+                    }
+                }
+                removeFacets(facets, genres, id, previous);
+                dropGenreRankings(previous);
+                allBooks.clear(id);
+                addFieldLengths(fieldLengthTotals, previous, -1);
+            }
+            if (document != null) {
+                addPostings(postings, trigrams, id, document);
+                addFacets(facets, genres, id, document);
+                dropGenreRankings(document);
+                allBooks.set(id);
+                addFieldLengths(fieldLengthTotals, document, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void addPostings(Map<String, PostingList> target, Map<String, Set<String>> trigramTarget,
+            long id, Document document) {
+        for (String term : document.terms()) {
+            PostingList list = target.get(term);
+            if (list == null) {
+                list = new PostingList();
+                target.put(term, list);
+                addTrigrams(trigramTarget, term);
+            }
+            list.add(id);
+        }
+    }
+
+    private static void addFieldLengths(long[] totals, Document document, int sign) {
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] += sign * (long) document.fieldLengths()[i];
+        }
+    }
+
+    private static Map<String, Map<String, IdBitmap>> emptyFacets() {
+        Map<String, Map<String, IdBitmap>> empty = new HashMap<>();
+        for (String facet : VALUE_FACETS) {
+            empty.put(facet, new HashMap<>());
+        }
+        return empty;
+    }
+
+    private static void addFacets(Map<String, Map<String, IdBitmap>> target, Map<Long, IdBitmap> genreTarget,
+            long id, Document document) {
+        for (int i = 0; i < VALUE_FACETS.size(); i++) {
+            String value = document.facetValues()[i];
+            if (value != null) {
+                target.get(VALUE_FACETS.get(i)).computeIfAbsent(value, v -> new IdBitmap()).set(id);
+            }
+        }
+        for (long genreId : document.genreIds()) {
+            genreTarget.computeIfAbsent(genreId, g -> new IdBitmap()).set(id);
+        }
+    }
+
+    private static void removeFacets(Map<String, Map<String, IdBitmap>> target, Map<Long, IdBitmap> genreTarget,
+            long id, Document document) {
+        for (int i = 0; i < VALUE_FACETS.size(); i++) {
+            String value = document.facetValues()[i];
+            Map<String, IdBitmap> values = target.get(VALUE_FACETS.get(i));
+            IdBitmap bitmap = value != null ? values.get(value) : null;
+            if (bitmap != null) {
+                bitmap.clear(id);
+                if (bitmap.isEmpty()) {
+                    values.remove(value);
+                }
+            }
+        }
+        for (long genreId : document.genreIds()) {
+            IdBitmap bitmap = genreTarget.get(genreId);
+            if (bitmap != null) {
+                bitmap.clear(id);
+                if (bitmap.isEmpty()) {
+                    genreTarget.remove(genreId);
+                }
+            }
+        }
+    }
+
+    private void dropGenreRankings(Document document) {
+        for (long genreId : document.genreIds()) {
+            genreRankings.remove(genreId);
+        }
+    }
+
+    private static void addTrigrams(Map<String, Set<String>> target, String term) {
+        if (isFuzzyField(term)) {
+            for (String trigram : trigramsOf(tokenOf(term))) {
+                target.computeIfAbsent(trigram, t -> new HashSet<>()).add(term);
+            }
+        }
+    }
+
+    private static void removeTrigrams(Map<String, Set<String>> target, String term) {
+        if (isFuzzyField(term)) {
+            for (String trigram : trigramsOf(tokenOf(term))) {
+                Set<String> terms = target.get(trigram);
+                if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                    target.remove(trigram);
+                }
+            }
+        }
+    }
+
+    // ============================================
+    // TOKENIZING & MATCHING
+    // ============================================
+
+    private Document toDocument(Book book) {
+        Map<String, Integer> termFreqs = new TreeMap<>();
+        int[] fieldLengths = {
+                addTerms(termFreqs, TITLE, book.getTitle()),
+                addTerms(termFreqs, AUTHOR, book.getAuthor()),
+                addTerms(termFreqs, GENRE, book.getGenre()),
+                addTerms(termFreqs, PUBLISHER, book.getPublisher()),
+                addTerms(termFreqs, DESCRIPTION, book.getDescription()) };
+        String[] facetValues = {
+                book.getPublishedYear() != null ? book.getPublishedYear().toString() : null,
+                trimToNull(book.getLanguage()),
+                book.getSource() != null ? book.getSource().name() : null };
+        return new Document(termFreqs.keySet().toArray(String[]::new),
+                termFreqs.values().stream().mapToInt(Integer::intValue).toArray(),
+                fieldLengths, book.getPublishedYear(), facetValues, genreDictionary.idsOf(book.getGenre()));
+    }
+
+    /**
+     * Count the field's tokens into termFreqs.
+     *
+     * @return the field length in tokens
+     */
+    private static int addTerms(Map<String, Integer> termFreqs, String field, String text) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            termFreqs.merge(field + ':' + token, 1, Integer::sum);
+        }
+        return tokens.size();
+    }
+
+    /**
+     * Lower-cased, accent-free alphanumeric tokens of a text.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase();
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Ids of books containing every query token in one of the fields.
+     * The last token also matches as a prefix unless the query ends with a space.
+     */
+    private long[] matchAll(String query, List<String> fields) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new long[0];
+        }
+        long[] result = null;
+        for (int i = 0; i < tokens.size() && (result == null || result.length > 0); i++) {
+            result = intersect(result, matchToken(tokens.get(i), fields, isPrefix(query, tokens, i)));
+        }
+        return result;
+    }
+
+    private static boolean isPrefix(String query, List<String> tokens, int i) {
+        return i == tokens.size() - 1
+                && tokens.get(i).length() >= MIN_PREFIX_LENGTH
+                && !Character.isWhitespace(query.charAt(query.length() - 1));
+    }
+
+    // ============================================
+    // RANKING
+    // ============================================
+
+    /**
+     * Order matched ids by relevance to the query, then review count, then average rating.
+     */
+    private long[] rank(long[] ids, String query, List<String> fields) {
+        if (ids.length < 2) {
+            return ids;
+        }
+        List<QueryTerm> queryTerms = queryTerms(query, fields);
+        int books = documents.size();
+        double[] averageLengths = new double[ALL_FIELDS.size()];
+        for (int i = 0; i < averageLengths.length; i++) {
+            averageLengths[i] = books > 0 ? Math.max(1.0, (double) fieldLengthTotals[i] / books) : 1.0;
+        }
+        Map<Long, Popularity> currentPopularity = popularity;
+
+        Ranked[] ranked = new Ranked[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Document document = documents.get(ids[i]);
+            double score = document != null ? bm25(document, queryTerms, averageLengths) : 0.0;
+            Popularity p = currentPopularity.getOrDefault(ids[i], Popularity.NONE);
+            ranked[i] = new Ranked(ids[i], score, p.reviews(), p.averageRating());
+        }
+        Arrays.sort(ranked, RANKING);
+        return Arrays.stream(ranked).mapToLong(Ranked::id).toArray();
+    }
+
+    /**
+     * The indexed terms a query matches, each weighted by field boost x inverse document frequency.
+     */
+    private List<QueryTerm> queryTerms(String query, List<String> fields) {
+        List<String> tokens = tokenize(query);
+        int books = documents.size();
+        List<QueryTerm> queryTerms = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean prefix = isPrefix(query, tokens, i);
+            for (String field : fields) {
+                int f = ALL_FIELDS.indexOf(field);
+                String key = field + ':' + tokens.get(i);
+                Map<String, PostingList> matches = prefix
+                        ? postings.subMap(key, true, key + Character.MAX_VALUE, false)
+                        : postings.containsKey(key) ? Map.of(key, postings.get(key)) : Map.of();
+                int expansions = 0;
+                for (Map.Entry<String, PostingList> match : matches.entrySet()) {
+                    if (expansions++ == MAX_SCORED_EXPANSIONS) {
+                        break;
+                    }
+                    int df = match.getValue().size();
+                    double idf = Math.log(1 + (books - df + 0.5) / (df + 0.5));
+                    queryTerms.add(new QueryTerm(match.getKey(), f, FIELD_BOOSTS[f] * idf));
+                }
+            }
+        }
+        return queryTerms;
+    }
+
+    private static double bm25(Document document, List<QueryTerm> queryTerms, double[] averageLengths) {
+        double score = 0.0;
+        for (QueryTerm queryTerm : queryTerms) {
+            int tf = document.termFreq(queryTerm.term());
+            if (tf > 0) {
+                int f = queryTerm.field();
+                double norm = BM25_K1 * (1 - BM25_B + BM25_B * document.fieldLengths()[f] / averageLengths[f]);
+                score += queryTerm.weight() * tf * (BM25_K1 + 1) / (tf + norm);
+            }
+        }
+        return score;
+    }
+
+    private long[] matchToken(String token, List<String> fields, boolean prefix) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String field : fields) {
+            String key = field + ':' + token;
+            if (prefix) {
+                lists.addAll(postings.subMap(key, true, key + Character.MAX_VALUE, false).values());
+            } else {
+                PostingList list = postings.get(key);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+        }
+        return union(lists);
+    }
+
+    /**
+     * Best similarity per book over the title/author terms resembling the token.
+     */
+    private Map<Long, Double> fuzzyMatchToken(String token, long deadline) {
+        Set<String> queryTrigrams = trigramsOf(token);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            for (String term : trigrams.getOrDefault(trigram, Set.of())) {
+                shared.merge(term, 1, Integer::sum);
+            }
+        }
+
+        // Dice coefficient over trigram sets
+        List<Map.Entry<String, Double>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            int termTrigrams = trigramsOf(tokenOf(entry.getKey())).size();
+            double similarity = 2.0 * entry.getValue() / (queryTrigrams.size() + termTrigrams);
+            if (similarity >= fuzzyMinSimilarity) {
+                candidates.add(Map.entry(entry.getKey(), similarity));
+            }
+        }
+        candidates.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+
+        Map<Long, Double> best = new HashMap<>();
+        for (int i = 0; i < candidates.size() && i < fuzzyMaxExpansions; i++) {
+            if (i > 0 && System.nanoTime() > deadline) {
+                break;
+            }
+            Map.Entry<String, Double> candidate = candidates.get(i);
+            for (long id : postings.get(candidate.getKey()).toArray()) {
+                best.merge(id, candidate.getValue(), Math::max);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Character trigrams of a token, padded so that short tokens and word starts weigh in
+     * ("tolkien" -> "  t", " to", "tol", ..., "en ").
+     */
+    static Set<String> trigramsOf(String token) {
+        String padded = "  " + token + " ";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private static boolean isFuzzyField(String term) {
+        return FUZZY_FIELDS.contains(term.substring(0, term.indexOf(':')));
+    }
+
+    private static String tokenOf(String term) {
+        return term.substring(term.indexOf(':') + 1);
+    }
+
+    private static long[] union(List<PostingList> lists) {
+        if (lists.isEmpty()) {
+            return new long[0];
+        }
+        if (lists.size() == 1) {
+            return lists.get(0).toArray();
+        }
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size();
+        }
+        long[] all = new long[total];
+        int n = 0;
+        for (PostingList list : lists) {
+            n = list.copyInto(all, n);
+        }
+        Arrays.sort(all);
+        int unique = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[i - 1]) {
+                all[unique++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, unique);
+    }
+
+    /** Intersection of two sorted id arrays; null stands for "everything". */
+    private static long[] intersect(long[] a, long[] b) {
+        if (a == null) {
+            return b;
+        }
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private IdBitmap facetBitmap(String facet, String value) {
+        if (FACET_GENRE.equals(facet)) {
+            return genreBitmap(value);
+        }
+        Map<String, IdBitmap> values = facets.get(facet);
+        if (values == null) {
+            throw new IllegalArgumentException("Unknown facet: " + facet);
+        }
+        return values.getOrDefault(value, IdBitmap.EMPTY);
+    }
+
+    private IdBitmap genreBitmap(String name) {
+        return genreDictionary.idOf(name).map(genres::get).orElse(IdBitmap.EMPTY);
+    }
+
+    private Map<String, IdBitmap> genresByName() {
+        Map<String, IdBitmap> byName = new HashMap<>();
+        genres.forEach((genreId, bitmap) -> {
+            String name = genreDictionary.nameOf(genreId);
+            if (name != null) {
+                byName.put(name, bitmap);
+            }
+        });
+        return byName;
+    }
+
+    /** Book ids of a genre, most reviewed first, then best rated (cached until one of them changes). */
+    private long[] genreRanking(long genreId) {
+        return genreRankings.computeIfAbsent(genreId, id -> {
+            IdBitmap bitmap = genres.get(id);
+            if (bitmap == null) {
+                return new long[0];
+            }
+            Map<Long, Popularity> currentPopularity = popularity;
+            return Arrays.stream(bitmap.toArray())
+                    .mapToObj(bookId -> {
+                        Popularity p = currentPopularity.getOrDefault(bookId, Popularity.NONE);
+                        return new Ranked(bookId, 0.0, p.reviews(), p.averageRating());
+                    })
+                    .sorted(RANKING)
+                    .mapToLong(Ranked::id)
+                    .toArray();
+        });
+    }
+
+    /**
+     * Non-zero counts of each value within the result, most frequent first.
+     */
+    private static Map<String, Integer> countValues(IdBitmap result, Map<String, IdBitmap> values, int limit) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        if (!result.isEmpty()) {
+            values.forEach((value, bitmap) -> {
+                int count = result.andCardinality(bitmap);
+                if (count > 0) {
+                    counts.add(Map.entry(value, count));
+                }
+            });
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> top = new LinkedHashMap<>();
+        for (int i = 0; i < counts.size() && i < limit; i++) {
+            top.put(counts.get(i).getKey(), counts.get(i).getValue());
+        }
+        return top;
+    }
+
+    private long[] filter(long[] ids, LongPredicate predicate) {
+        long[] source = ids != null ? ids : allIds();
+        return Arrays.stream(source).filter(predicate).toArray();
+    }
+
+    private long[] allIds() {
+        return documents.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * Resolve one page of matching ids (in the given order) to books.
+     */
+    private Page<Book> page(long[] ids, Pageable pageable) {
+        if (ids == null || ids.length == 0) {
+            return Page.empty(pageable);
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(fetchInOrder(ids));
+        }
+        int from = (int) Math.min(pageable.getOffset(), ids.length);
+        int to = Math.min(from + pageable.getPageSize(), ids.length);
+        return new PageImpl<>(fetchInOrder(Arrays.copyOfRange(ids, from, to)), pageable, ids.length);
+    }
+
+    private List<Book> fetchInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> boxed = Arrays.stream(ids).boxed().toList();
+        Map<Long, Book> byId = new HashMap<>();
+        for (Book book : bookRepository.findAllById(boxed)) {
+            byId.put(book.getId(), book);
+        }
+        List<Book> books = new ArrayList<>(ids.length);
+        for (Long id : boxed) {
+            Book book = byId.get(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String trimToNull(String value) {
+        return isBlank(value) ? null : value.trim();
+    }
+
+    // ============================================
+    // POSTING LIST
+    // ============================================
+
+    /**
+     * Sorted, duplicate-free list of book ids in a growable primitive array.
+     */
+    private static final class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            int insertAt = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        int copyInto(long[] target, int offset) {
+            System.arraycopy(ids, 0, target, offset, size);
+            return offset + size;
+        }
+    }
+
+    // ============================================
+    // ID BITMAP
+    // ============================================
+
+    /**
+     * Growable bitset over book ids (one bit per id, 64 ids per word).
+     */
+    private static final class IdBitmap {
+        static final IdBitmap EMPTY = new IdBitmap();
+
+        private long[] words = new long[0];
+
+        static IdBitmap of(long[] ids) {
+            IdBitmap bitmap = new IdBitmap();
+            for (long id : ids) {
+                bitmap.set(id);
+            }
+            return bitmap;
+        }
+
+        void set(long id) {
+            int word = (int) (id >>> 6);
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+            }
+            words[word] |= 1L << id;
+        }
+
+        void clear(long id) {
+            int word = (int) (id >>> 6);
+            if (word < words.length) {
+                words[word] &= ~(1L << id);
+            }
+        }
+
+        boolean isEmpty() {
+            for (long word : words) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void and(IdBitmap other) {
+            int common = Math.min(words.length, other.words.length);
+            for (int i = 0; i < common; i++) {
+                words[i] &= other.words[i];
+            }
+            Arrays.fill(words, common, words.length, 0L);
+        }
+
+        int andCardinality(IdBitmap other) {
+            int common = Math.min(words.length, other.words.length);
+            int count = 0;
+            for (int i = 0; i < common; i++) {
+                count += Long.bitCount(words[i] & other.words[i]);
+            }
+            return count;
+        }
+
+        IdBitmap copy() {
+            IdBitmap copy = new IdBitmap();
+            copy.words = words.clone();
+            return copy;
+        }
+
+        /** Set ids in ascending order. */
+        long[] toArray() {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            long[] ids = new long[count];
+            int n = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    ids[n++] = ((long) i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return ids;
+        }
+    }
+}
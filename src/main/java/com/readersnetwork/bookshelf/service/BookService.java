@@ -1,30 +1,74 @@
 package com.readersnetwork.bookshelf.service;
 
 import com.readersnetwork.bookshelf.config.GoogleBooksApiClient;
+import com.readersnetwork.bookshelf.dto.response.AutocompleteSuggestion;
 import com.readersnetwork.bookshelf.entity.Book;
 import com.readersnetwork.bookshelf.entity.BookSource;
 import com.readersnetwork.bookshelf.exception.BookNotFoundException;
+import com.readersnetwork.bookshelf.exception.ServiceUnavailableException;
 import com.readersnetwork.bookshelf.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class BookService {
 
+    // Most frequent values returned per facet
+    private static final int MAX_FACET_VALUES = 20;
+
     @Autowired
     private BookRepository bookRepository;
 
     @Autowired
     private GoogleBooksApiClient googleBooksApiClient;
 
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookAutocompleteIndex bookAutocompleteIndex;
+
+    @Autowired
+    private CatalogQueryCache catalogQueryCache;
+
+    @Autowired
+    private GenreDictionary genreDictionary;
+
+    @Autowired
+    private BookIdentifierIndex bookIdentifierIndex;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private BookBulkLoader bookBulkLoader;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bookshelf.books.lookup.wait-timeout-ms:10000}")
+    private long lookupWaitTimeoutMs;
+
+    // Google Books lookups in progress, by normalized query
+    private final SingleFlight<String, Book> googleBooksLookups = new SingleFlight<>();
+
     // ============================================
     // SEARCH & API INTEGRATION
     // ============================================
@@ -34,59 +78,135 @@ public class BookService {
      * User provides: "Harry Potter" or "1984 George Orwell"
      *
      * Flow:
-     * 1. Search our database first (fast)
+     * 1. Search our catalog first (in-memory index, fast): exact matches, then a misspelling that
+     *    clearly means one catalog book ("Harry Poter", "Tolkein")
      * 2. If not found → query Google Books API via GoogleBooksApiClient
      * 3. Deduplicate against race conditions
      * 4. Save and return
+     *
+     * Steps 2-4 run once per normalized query no matter how many users ask at the same time:
+     * concurrent callers wait for that single call and insert (or its error), up to a timeout.
+     * If Google Books cannot be reached they all get a ServiceUnavailableException.
      */
-    @Transactional
     public Book searchAndCreateBook(String searchQuery) {
         // Step 1: Try to find in our database first
-        Page<Book> existingBooks = bookRepository.searchBooks(
-                searchQuery,
-                PageRequest.of(0, 1)
-        );
+        Page<Book> existingBooks = exactSearch(searchQuery, PageRequest.of(0, 1));
 
         if (!existingBooks.isEmpty()) {
             return existingBooks.getContent().get(0);
         }
 
-        // Step 2: Not in database → query Google Books API
-        Book bookFromApi = googleBooksApiClient.fetchFirstBook(searchQuery);
+        // A merely similar title may be a different book: only a single, very close candidate counts
+        Optional<Book> misspelled = bookSearchIndex.fuzzyMatch(searchQuery);
+        if (misspelled.isPresent()) {
+            meterRegistry.counter("bookshelf.books.lookup.fuzzy-hit").increment();
+            return misspelled.get();
+        }
+
+        // The insert commits before waiters are released, so they never see an uncommitted book
+        SingleFlight.Result<Book> result = googleBooksLookups.execute(lookupKey(searchQuery), lookupWaitTimeoutMs,
+                () -> new TransactionTemplate(transactionManager).execute(status -> fetchAndSaveBook(searchQuery)));
+        if (result.shared()) {
+            meterRegistry.counter("bookshelf.books.lookup.coalesced").increment();
+        }
+        return result.value();
+    }
+
+    private Book fetchAndSaveBook(String searchQuery) {
+        // Step 2: Not in database → query Google Books API (an outage is a 503 for every waiter, not a 404)
+        List<Book> booksFromApi = googleBooksApiClient.fetchPage(searchQuery, 1, 0);
 
-        if (bookFromApi == null) {
+        if (booksFromApi.isEmpty()) {
             throw new BookNotFoundException("Book not found: " + searchQuery);
         }
+        Book bookFromApi = booksFromApi.get(0);
 
         // Step 3: Race condition protection — another user may have just added it
-        Optional<Book> duplicate = bookRepository.findByAnyIdentifier(
-                bookFromApi.getIsbn(),
-                bookFromApi.getGoogleBooksId(),
-                null,
-                bookFromApi.getTitle(),
-                bookFromApi.getAuthor());
+        Optional<Book> duplicate = bookIdentifierIndex.findDuplicate(bookFromApi);
 
         if (duplicate.isPresent()) {
             return duplicate.get();
         }
 
         // Step 4: Save and return
-        return bookRepository.save(bookFromApi);
+        bookFromApi.setGenres(genreDictionary.resolve(bookFromApi.getGenre()));
+        Book saved = bookRepository.save(bookFromApi);
+        bookIdentifierIndex.register(saved);
+        reindexAfterCommit(saved);
+        return saved;
     }
 
     /**
      * Get multiple search results (for search results page).
-     * Searches only in our database.
+     * Searches only in our catalog: answered by the inverted index, SQL until it is built.
+     * When nothing matches exactly, the pages hold fuzzy title/author candidates instead.
+     * Results are cached until the catalog changes.
      */
     public Page<Book> searchBooks(String query, Pageable pageable) {
-        return bookRepository.searchBooks(query, pageable);
+        return catalogQueryCache.get("search", query, pageable, Map.of(), () -> {
+            Page<Book> results = exactSearch(query, pageable);
+            if (results.getTotalElements() > 0 || pageable.isUnpaged()) {
+                return results;
+            }
+            Page<Book> candidates = bookSearchIndex.fuzzySearch(query, pageable);
+            return candidates.getTotalElements() > 0 ? candidates : results;
+        });
     }
 
     /**
      * Advanced search with filters.
+     * Text filters are answered by the inverted index; year-only queries go to the database.
+     * The genre filter matches a whole dictionary genre (case and accents ignored).
      */
     public Page<Book> advancedSearch(String title, String author, String genre, Integer year, Pageable pageable) {
-        return bookRepository.advancedSearch(title, author, genre, year, pageable);
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("title", title);
+        filters.put("author", author);
+        filters.put("genre", genre);
+        filters.put("year", year);
+        return catalogQueryCache.get("advanced", null, pageable, filters,
+                () -> bookSearchIndex.advancedSearch(title, author, genre, year, pageable)
+                        .orElseGet(() -> bookRepository.advancedSearch(title, author,
+                                genre == null || genre.isBlank() ? null : GenreDictionary.slug(genre), year, pageable)));
+    }
+
+    /**
+     * Search with facet counts (genre, year, language, source) over all matches.
+     * The query is optional; filters narrow the matches to one value per facet.
+     */
+    public BookSearchIndex.FacetedPage facetedSearch(String query, Map<String, String> filters, Pageable pageable) {
+        return catalogQueryCache.get("faceted", query, pageable, filters,
+                () -> bookSearchIndex.facetedSearch(query, filters, MAX_FACET_VALUES, pageable)
+                        .orElseThrow(() -> new ServiceUnavailableException(
+                                "Search index is still loading, try again shortly")));
+    }
+
+    /**
+     * Search-as-you-type completions (titles and authors), most reviewed first.
+     */
+    public List<AutocompleteSuggestion> autocomplete(String prefix, int limit) {
+        return bookAutocompleteIndex.complete(prefix, limit);
+    }
+
+    /**
+     * Rebuild the search index from the database (admin).
+     */
+    public Map<String, Object> rebuildSearchIndex() {
+        return bookSearchIndex.rebuild();
+    }
+
+    /**
+     * Write the catalog to the snapshot file used for fast cold starts (admin).
+     */
+    public Map<String, Object> exportCatalogSnapshot() {
+        return catalogSnapshot.export();
+    }
+
+    /**
+     * Search index size and latency figures (admin).
+     */
+    public Map<String, Object> getSearchIndexStats() {
+        return bookSearchIndex.stats();
     }
 
     // ============================================
@@ -99,12 +219,7 @@ public class BookService {
      */
     @Transactional
     public Book createBookManually(Book book) {
-        Optional<Book> duplicate = bookRepository.findByAnyIdentifier(
-                book.getIsbn(),
-                book.getGoogleBooksId(),
-                book.getOpenLibraryId(),
-                book.getTitle(),
-                book.getAuthor());
+        Optional<Book> duplicate = bookIdentifierIndex.findDuplicate(book);
 
         if (duplicate.isPresent()) {
             throw new RuntimeException("Book already exists in database with ID: " + duplicate.get().getId());
@@ -119,8 +234,12 @@ public class BookService {
         if (book.getIsVerified() == null) {
             book.setIsVerified(false);
         }
+        book.setGenres(genreDictionary.resolve(book.getGenre()));
 
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookIdentifierIndex.register(saved);
+        reindexAfterCommit(saved);
+        return saved;
     }
 
     /**
@@ -134,7 +253,14 @@ public class BookService {
         if (!bookRepository.existsById(book.getId())) {
             throw new BookNotFoundException("Book not found with id: " + book.getId());
         }
-        return bookRepository.save(book);
+        book.setGenres(genreDictionary.resolve(book.getGenre()));
+        Book saved = bookRepository.save(book);
+        bookIdentifierIndex.register(saved);
+        bookBulkLoader.resetAfterCommit(); // the old identifiers may be free now
+        bookSearchIndex.indexAfterCommit(saved);
+        bookAutocompleteIndex.updateAfterCommit(saved); // drops the old title
+        catalogQueryCache.catalogChangedAfterCommit();
+        return saved;
     }
 
     /**
@@ -148,6 +274,11 @@ public class BookService {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new BookNotFoundException("Book not found with id: " + id));
         bookRepository.delete(book);
+        bookIdentifierIndex.remove(id);
+        bookBulkLoader.resetAfterCommit();
+        bookSearchIndex.removeAfterCommit(id);
+        bookAutocompleteIndex.removeAfterCommit(id);
+        catalogQueryCache.catalogChangedAfterCommit();
     }
 
     /**
@@ -157,7 +288,9 @@ public class BookService {
     public Book verifyBook(Long id) {
         Book book = getBookById(id);
         book.setIsVerified(true);
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        catalogQueryCache.catalogChangedAfterCommit();
+        return saved;
     }
 
     /**
@@ -179,16 +312,25 @@ public class BookService {
                 .orElseThrow(() -> new BookNotFoundException("Book not found with id: " + id));
     }
 
+    /**
+     * ISBN-10 and ISBN-13 forms of the same edition both match.
+     */
     public boolean existsByIsbn(String isbn) {
-        return bookRepository.existsByIsbn(isbn);
+        return bookIdentifierIndex.existsByIsbn(isbn);
     }
 
     // ============================================
     // DISCOVERY & RECOMMENDATIONS
     // ============================================
 
+    /**
+     * Books in a genre, most reviewed first. Served from the genre bitmaps of the search index,
+     * SQL until it is built.
+     */
     public Page<Book> getBooksByGenre(String genre, Pageable pageable) {
-        return bookRepository.findByGenre(genre, pageable);
+        return catalogQueryCache.get("genre", genre, pageable, Map.of(),
+                () -> bookSearchIndex.byGenre(genre, pageable)
+                        .orElseGet(() -> bookRepository.findByGenreSlug(GenreDictionary.slug(genre), pageable)));
     }
 
     public Page<Book> getMostReviewedBooks(Pageable pageable) {
@@ -207,4 +349,30 @@ public class BookService {
         LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
         return bookRepository.findTrendingBooks(thirtyDaysAgo, pageable);
     }
+
+    // ============================================
+    // HELPER METHODS
+    // ============================================
+
+    /** Books matching every query word: the inverted index, SQL until it is built. */
+    private Page<Book> exactSearch(String query, Pageable pageable) {
+        return bookSearchIndex.search(query, pageable)
+                .orElseGet(() -> bookRepository.searchBooks(query, pageable));
+    }
+
+    /** Lower-cased, accent-free words, so "Dune " and "dune" share one Google Books lookup. */
+    private static String lookupKey(String query) {
+        String normalized = String.join(" ", BookSearchIndex.tokenize(query));
+        return normalized.isEmpty() ? query.trim().toLowerCase() : normalized;
+    }
+
+    /**
+     * Refresh the in-memory search structures, then the result cache, once the transaction commits.
+     * The cache bump is registered last so no query can cache pre-change index results under the new version.
+     */
+    private void reindexAfterCommit(Book saved) {
+        bookSearchIndex.indexAfterCommit(saved);
+        bookAutocompleteIndex.addAfterCommit(saved);
+        catalogQueryCache.catalogChangedAfterCommit();
+    }
 }
@@ -0,0 +1,142 @@
+package com.readersnetwork.bookshelf.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of catalog search results.
+ *
+ * Strategy:
+ * - Keyed on endpoint + normalized query + page + size + sort + filters
+ * - Every entry remembers the catalog version it was computed under; any book insert, update or
+ *   delete bumps the version after commit, so older entries are never served again
+ *   (no per-entry invalidation needed)
+ * - A short TTL bounds how long popularity tie-breaks (review counts) can lag
+ * - Least recently used entries are evicted beyond the capacity
+ * - Metrics: bookshelf.search.cache.hits / .misses / .evictions counters,
+ *   bookshelf.search.cache.size and .version gauges (see /actuator/metrics)
+ */
+@Component
+public class CatalogQueryCache {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Value("${bookshelf.search.cache.capacity:5000}")
+    private int capacity;
+
+    @Value("${bookshelf.search.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    /** One cached query. */
+    private record Key(String endpoint, String query, int page, int size, String sort, String filters) {
+    }
+
+    private record Entry(Object value, long version, long storedAt) {
+    }
+
+    // Access-ordered so the least recently read result is evicted first
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public CatalogQueryCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("bookshelf.search.cache.hits")
+                .description("Catalog searches answered from the result cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("bookshelf.search.cache.misses")
+                .description("Catalog searches computed and stored in the result cache")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("bookshelf.search.cache.evictions")
+                .description("Result cache entries evicted for capacity")
+                .register(meterRegistry);
+        meterRegistry.gauge("bookshelf.search.cache.size", this, cache -> cache.size());
+        meterRegistry.gauge("bookshelf.search.cache.version", version);
+    }
+
+    /**
+     * Cached result of a catalog query, computed with the loader on a miss.
+     *
+     * @param filters extra parameters that change the result (null values are ignored)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String endpoint, String query, Pageable pageable, Map<String, ?> filters, Supplier<T> loader) {
+        Key key = new Key(endpoint, normalize(query),
+                pageable.isPaged() ? pageable.getPageNumber() : -1,
+                pageable.isPaged() ? pageable.getPageSize() : -1,
+                pageable.getSort().toString(),
+                present(filters).toString());
+        long currentVersion = version.get();
+        long now = System.nanoTime();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version() == currentVersion
+                    && now - entry.storedAt() < TimeUnit.MILLISECONDS.toNanos(ttlMs)) {
+                hits.increment();
+                return (T) entry.value();
+            }
+        }
+
+        // Computed outside the lock; a version bump meanwhile makes this entry unusable right away
+        misses.increment();
+        T value = loader.get();
+        synchronized (entries) {
+            entries.put(key, new Entry(value, currentVersion, now));
+        }
+        return value;
+    }
+
+    /**
+     * Invalidate every cached result once the surrounding transaction commits.
+     */
+    public void catalogChangedAfterCommit() {
+        AfterCommit.run(version::incrementAndGet);
+    }
+
+    private static Map<String, Object> present(Map<String, ?> filters) {
+        Map<String, Object> present = new TreeMap<>();
+        filters.forEach((name, value) -> {
+            if (value != null) {
+                present.put(name, value);
+            }
+        });
+        return present;
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** Lower-cased, accent-free words; a trailing space is kept since it disables prefix matching. */
+    private static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = String.join(" ", BookSearchIndex.tokenize(query));
+        return !query.isEmpty() && Character.isWhitespace(query.charAt(query.length() - 1))
+                ? normalized + ' '
+                : normalized;
+    }
+}
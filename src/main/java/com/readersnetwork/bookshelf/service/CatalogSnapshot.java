@@ -0,0 +1,297 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.entity.BookSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary snapshot of the book catalog, for loading a fresh environment without the Google Books API.
+ *
+ * Format (gzip-compressed, streamed through a FileChannel):
+ * - Header: magic "BKSN" (int), format version (short)
+ * - One record per book: marker byte 1, a 16-bit mask of the non-null fields, then each present
+ *   field in FIELDS order: strings as length-prefixed UTF-8 (int + bytes), numbers as int/double,
+ *   the verified flag as a byte, created_at as UTC epoch millis (long; version 2 on)
+ * - Trailer: marker byte 0 and the record count (long), checked on import
+ *
+ * Ids are not stored: imported books get new ids, are deduplicated against the catalog and linked
+ * to their genres by BookBulkLoader, in batches of IMPORT_BATCH_SIZE. They keep their original
+ * created_at. The whole file is read and checked before the first batch is inserted, so a
+ * truncated or corrupt snapshot imports nothing.
+ * Exports are written to a temporary file and moved into place, so readers never see half a file.
+ */
+@Component
+@Slf4j
+public class CatalogSnapshot {
+
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+    private static final short VERSION = 2;
+    private static final short OLDEST_READABLE_VERSION = 1;
+    private static final byte RECORD = 1;
+    private static final byte END = 0;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    /** Snapshot fields, in record order; the position is the bit in the presence mask. */
+    private static final String SELECT_SQL = "SELECT title, author, isbn, google_books_id, open_library_id, "
+            + "cover_url, description, published_year, genre, page_count, average_rating, publisher, language, "
+            + "source, is_verified, created_at FROM books ORDER BY id";
+    private static final int FIELDS = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookBulkLoader bookBulkLoader;
+
+    @Value("${bookshelf.snapshot.path:data/catalog.snapshot}")
+    private Path path;
+
+    public CatalogSnapshot(JdbcTemplate jdbcTemplate, BookBulkLoader bookBulkLoader) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookBulkLoader = bookBulkLoader;
+    }
+
+    // ============================================
+    // PUBLIC API
+    // ============================================
+
+    /** True if a snapshot file is present at the configured path. */
+    public boolean isAvailable() {
+        return Files.isRegularFile(path);
+    }
+
+    /**
+     * Write every catalog book to the snapshot file (replacing it).
+     *
+     * @return path, book count, file size and duration
+     */
+    public Map<String, Object> export() {
+        long started = System.nanoTime();
+        Path absolute = path.toAbsolutePath();
+        long[] books = { 0 };
+        try {
+            Files.createDirectories(absolute.getParent());
+            Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), BUFFER_SIZE))) {
+                    out.writeInt(MAGIC);
+                    out.writeShort(VERSION);
+                    jdbcTemplate.query(SELECT_SQL, rs -> {
+                        try {
+                            writeRecord(out, rs);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        books[0]++;
+                    });
+                    out.writeByte(END);
+                    out.writeLong(books[0]);
+                }
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("path", absolute.toString());
+            result.put("books", books[0]);
+            result.put("bytes", Files.size(absolute));
+            result.put("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Catalog snapshot exported: {}", result);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write catalog snapshot " + absolute, e);
+        }
+    }
+
+    /**
+     * Load the snapshot file into the catalog (books already present are skipped).
+     *
+     * @return path, records read, books saved and skipped, duration
+     */
+    public Map<String, Object> importSnapshot() {
+        long started = System.nanoTime();
+        readAll(book -> {
+        }); // validation pass: nothing is inserted from a truncated or corrupt file
+
+        int[] counts = { 0, 0 }; // saved, skipped
+        List<Book> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        Runnable flush = () -> {
+            BookBulkLoader.Result result = bookBulkLoader.ingest(batch);
+            counts[0] += result.saved();
+            counts[1] += result.skipped();
+            batch.clear();
+        };
+        long read = readAll(book -> {
+            batch.add(book);
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                flush.run();
+            }
+        });
+        if (!batch.isEmpty()) {
+            flush.run();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("path", path.toAbsolutePath().toString());
+        result.put("read", read);
+        result.put("saved", counts[0]);
+        result.put("skipped", counts[1]);
+        result.put("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("Catalog snapshot imported: {}", result);
+        return result;
+    }
+
+    // ============================================
+    // RECORD ENCODING
+    // ============================================
+
+    /**
+     * Decode every record of the snapshot file, checking header and trailer.
+     *
+     * @return number of records
+     */
+    private long readAll(Consumer<Book> consumer) {
+        long read = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        new GZIPInputStream(Channels.newInputStream(channel), BUFFER_SIZE), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalStateException("Not a catalog snapshot: " + path);
+            }
+            short version = in.readShort();
+            if (version < OLDEST_READABLE_VERSION || version > VERSION) {
+                throw new IllegalStateException("Unsupported catalog snapshot version " + version + ": " + path);
+            }
+
+            byte marker;
+            while ((marker = in.readByte()) == RECORD) {
+                consumer.accept(readRecord(in));
+                read++;
+            }
+            if (marker != END) {
+                throw new IllegalStateException("Catalog snapshot " + path + " is corrupt after " + read + " books");
+            }
+            long expected = in.readLong();
+            if (expected != read) {
+                throw new IllegalStateException("Catalog snapshot " + path + " is truncated: read " + read
+                        + " of " + expected + " books");
+            }
+            return read;
+        } catch (EOFException e) {
+            throw new IllegalStateException("Catalog snapshot " + path + " is truncated after " + read + " books", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read catalog snapshot " + path, e);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, ResultSet rs) throws IOException, SQLException {
+        Object[] values = new Object[FIELDS];
+        int mask = 0;
+        for (int i = 0; i < FIELDS; i++) {
+            values[i] = rs.getObject(i + 1);
+            if (values[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        out.writeByte(RECORD);
+        out.writeShort(mask);
+        for (int i = 0; i < FIELDS; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            switch (i) {
+                case 7, 9 -> out.writeInt(((Number) value).intValue());          // published_year, page_count
+                case 10 -> out.writeDouble(((Number) value).doubleValue());      // average_rating
+                case 14 -> out.writeByte(Boolean.TRUE.equals(value) ? 1 : 0);    // is_verified
+                case 15 -> out.writeLong(epochMillis(value));                    // created_at
+                default -> writeString(out, value.toString());
+            }
+        }
+    }
+
+    private static Book readRecord(DataInputStream in) throws IOException {
+        int mask = in.readUnsignedShort();
+        Book book = new Book();
+        book.setTitle(readString(in, mask, 0));
+        book.setAuthor(readString(in, mask, 1));
+        book.setIsbn(readString(in, mask, 2));
+        book.setGoogleBooksId(readString(in, mask, 3));
+        book.setOpenLibraryId(readString(in, mask, 4));
+        book.setCoverUrl(readString(in, mask, 5));
+        book.setDescription(readString(in, mask, 6));
+        book.setPublishedYear(has(mask, 7) ? in.readInt() : null);
+        book.setGenre(readString(in, mask, 8));
+        book.setPageCount(has(mask, 9) ? in.readInt() : null);
+        book.setAverageRating(has(mask, 10) ? in.readDouble() : null);
+        book.setPublisher(readString(in, mask, 11));
+        book.setLanguage(readString(in, mask, 12));
+        String source = readString(in, mask, 13);
+        book.setSource(source != null ? BookSource.valueOf(source) : null);
+        book.setIsVerified(has(mask, 14) ? in.readByte() == 1 : null);
+        book.setCreatedAt(has(mask, 15)
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC)
+                : null);
+        return book;
+    }
+
+    private static long epochMillis(Object timestamp) {
+        LocalDateTime dateTime = timestamp instanceof LocalDateTime local
+                ? local
+                : ((Timestamp) timestamp).toLocalDateTime();
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, int mask, int field) throws IOException {
+        if (!has(mask, field)) {
+            return null;
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean has(int mask, int field) {
+        return (mask & (1 << field)) != 0;
+    }
+}
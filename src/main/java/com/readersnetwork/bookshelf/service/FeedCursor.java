@@ -0,0 +1,46 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for activity feeds.
+ * Points at the (createdAt, id) of the last item of a page; the next page holds strictly older items.
+ * Clients only ever see the encoded token.
+ */
+public record FeedCursor(LocalDateTime createdAt, long id) {
+
+    /**
+     * Cursor placed before the newest possible item (first page).
+     */
+    public static final FeedCursor START = new FeedCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Decode a token issued by {@link #encode()}. A null or blank token means the first page.
+     */
+    public static FeedCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new FeedCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Invalid feed cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.repository.UserFollowRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of "who does this user follow" for per-keystroke lookups (@mention ranking).
+ *
+ * - Bounded: least recently used users are evicted beyond {@code max-users}
+ * - Entries expire after {@code ttl-ms}, and follow / unfollow drops the follower's entry once it commits
+ */
+@Component
+public class FollowingCache {
+
+    private final UserFollowRepository userFollowRepository;
+
+    @Value("${bookshelf.users.following-cache.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${bookshelf.users.following-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    private record Following(Set<Long> ids, long loadedAt) {
+    }
+
+    // userId -> following ids; access-ordered for LRU eviction
+    private final Map<Long, Following> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Following> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    public FollowingCache(UserFollowRepository userFollowRepository) {
+        this.userFollowRepository = userFollowRepository;
+    }
+
+    /**
+     * Ids of the users this user follows (read-only).
+     */
+    public Set<Long> followingIds(long userId) {
+        long now = System.nanoTime();
+        synchronized (cache) {
+            Following following = cache.get(userId);
+            if (following != null && now - following.loadedAt() < TimeUnit.MILLISECONDS.toNanos(ttlMs)) {
+                return following.ids();
+            }
+        }
+        Set<Long> ids = Set.copyOf(userFollowRepository.findFollowingIds(userId));
+        synchronized (cache) {
+            cache.put(userId, new Following(ids, now));
+        }
+        return ids;
+    }
+
+    /**
+     * Drop a user's entry once the surrounding transaction (which changed their follows) commits.
+     */
+    public void invalidate(long userId) {
+        Runnable drop = () -> {
+            synchronized (cache) {
+                cache.remove(userId);
+            }
+        };
+        AfterCommit.run(drop);
+    }
+}
@@ -0,0 +1,174 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.entity.Genre;
+import com.readersnetwork.bookshelf.repository.BookRepository;
+import com.readersnetwork.bookshelf.repository.GenreRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of normalized genres (id <-> name) behind the free-text Book.genre column.
+ *
+ * - A genre text is split on commas ("Fantasy, Young Adult"); each part is looked up by its slug
+ *   (lower-cased, accent-free words), so "Science-Fiction" and "science fiction" are one genre
+ * - Unknown genres are created on first sight in their own transaction, so they exist (and keep
+ *   their id) even if the book insert that introduced them rolls back
+ * - The whole dictionary is kept in memory; books added before it existed are linked at startup
+ */
+@Component
+@Slf4j
+public class GenreDictionary {
+
+    private static final int BACKFILL_PAGE_SIZE = 500;
+
+    private final GenreRepository genreRepository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate newTransaction;
+
+    private final Map<String, Genre> genresBySlug = new ConcurrentHashMap<>();
+    private final Map<Long, Genre> genresById = new ConcurrentHashMap<>();
+
+    public GenreDictionary(GenreRepository genreRepository, BookRepository bookRepository,
+            PlatformTransactionManager transactionManager) {
+        this.genreRepository = genreRepository;
+        this.bookRepository = bookRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void init() {
+        genreRepository.findAll().forEach(this::remember);
+        int linked = linkExistingBooks();
+        log.info("Genre dictionary loaded: {} genres, {} books linked at startup", genresById.size(), linked);
+    }
+
+    // ============================================
+    // LOOKUPS
+    // ============================================
+
+    /**
+     * Genres named in a comma-separated genre text, created when new. Call before saving the book.
+     */
+    public Set<Genre> resolve(String genreText) {
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (Map.Entry<String, String> name : names(genreText).entrySet()) {
+            Genre genre = genresBySlug.get(name.getKey());
+            genres.add(genre != null ? genre : create(name.getKey(), name.getValue()));
+        }
+        return genres;
+    }
+
+    /**
+     * Ids of the known genres named in a genre text (unknown names are skipped).
+     */
+    public long[] idsOf(String genreText) {
+        List<Long> ids = new ArrayList<>();
+        for (String slug : names(genreText).keySet()) {
+            Genre genre = genresBySlug.get(slug);
+            if (genre != null) {
+                ids.add(genre.getId());
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /** Id of a single genre name, matched by slug. */
+    public Optional<Long> idOf(String name) {
+        return Optional.ofNullable(genresBySlug.get(slug(name))).map(Genre::getId);
+    }
+
+    /** Display name of a genre id, or null if unknown. */
+    public String nameOf(long id) {
+        Genre genre = genresById.get(id);
+        return genre != null ? genre.getName() : null;
+    }
+
+    public int size() {
+        return genresById.size();
+    }
+
+    /** Lower-cased, accent-free words joined by single spaces. */
+    public static String slug(String name) {
+        return name == null ? "" : String.join(" ", BookSearchIndex.tokenize(name));
+    }
+
+    // ============================================
+    // HELPER METHODS
+    // ============================================
+
+    /** Slug -> display name of each distinct part of a genre text. */
+    private static Map<String, String> names(String genreText) {
+        Map<String, String> names = new LinkedHashMap<>();
+        if (genreText == null) {
+            return names;
+        }
+        for (String part : genreText.split(",")) {
+            String name = part.trim();
+            String slug = slug(name);
+            if (!slug.isEmpty() && name.length() <= 100) {
+                names.putIfAbsent(slug, name);
+            }
+        }
+        return names;
+    }
+
+    private synchronized Genre create(String slug, String name) {
+        Genre genre = genresBySlug.get(slug);
+        if (genre != null) {
+            return genre;
+        }
+        try {
+            genre = newTransaction.execute(status -> genreRepository.findBySlug(slug)
+                    .orElseGet(() -> genreRepository.save(Genre.builder().name(name).slug(slug).build())));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another instance
+            genre = genreRepository.findBySlug(slug).orElseThrow(() -> e);
+        }
+        remember(genre);
+        return genre;
+    }
+
+    private void remember(Genre genre) {
+        genresBySlug.put(genre.getSlug(), genre);
+        genresById.put(genre.getId(), genre);
+    }
+
+    private int linkExistingBooks() {
+        int linked = 0;
+        long afterId = 0;
+        List<Book> books;
+        do {
+            long from = afterId;
+            books = newTransaction.execute(status -> {
+                List<Book> page = bookRepository.findWithUnlinkedGenres(from, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+                // Managed entities: the links are written when this transaction commits
+                page.forEach(book -> book.setGenres(resolve(book.getGenre())));
+                return page;
+            });
+            for (Book book : books) {
+                afterId = book.getId();
+                if (!book.getGenres().isEmpty()) {
+                    linked++;
+                }
+            }
+        } while (books.size() == BACKFILL_PAGE_SIZE);
+        return linked;
+    }
+}
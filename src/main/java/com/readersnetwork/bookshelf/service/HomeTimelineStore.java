@@ -0,0 +1,378 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.ActivityFeed;
+import com.readersnetwork.bookshelf.repository.ActivityFeedRepository;
+import com.readersnetwork.bookshelf.repository.UserFollowRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Materialized (fan-out-on-write) home timelines for the activity feed.
+ *
+ * Strategy:
+ * - Each warm user keeps a capped, newest-first list of (activityId, authorId) pairs
+ *   covering their own activities plus the activities of everyone they follow
+ * - A new activity is pushed into the timelines of the author's followers that are in memory;
+ *   cold timelines are built lazily from the database on the first feed read
+ * - Authors with more than {@code max-followers} followers switch to pull mode: their activities
+ *   are not pushed but merged in at read time, so a single write stays bounded
+ * - The number of timelines held in memory is bounded (least recently used are evicted)
+ * - Follow / unfollow drops the follower's timeline so it is rebuilt with the new graph
+ * - Each timeline caches which of its followed authors are in pull mode, and the count of their
+ *   newer activities until one of them publishes again
+ *
+ * Timelines are ordered by activity id, which follows insertion (and therefore creation) order;
+ * the database fallback of the feed uses the same order.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HomeTimelineStore {
+
+    private final ActivityFeedRepository activityFeedRepository;
+    private final UserFollowRepository userFollowRepository;
+
+    @Value("${bookshelf.feed.timeline.capacity:500}")
+    private int capacity;
+
+    @Value("${bookshelf.feed.timeline.max-users:10000}")
+    private int maxUsers;
+
+    @Value("${bookshelf.feed.fanout.max-followers:5000}")
+    private long maxFanOutFollowers;
+
+    // Authors whose activities are pulled at read time instead of pushed (sticky for the process lifetime)
+    private final Set<Long> pullAuthors = ConcurrentHashMap.newKeySet();
+
+    // Bumped whenever a pull-mode author publishes, so cached pulled counts know they are stale
+    private final AtomicLong pullWrites = new AtomicLong();
+
+    // Access-ordered so the least recently read timeline is evicted first
+    private final Map<Long, Timeline> timelines = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Timeline> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    // ============================================
+    // WRITE PATH
+    // ============================================
+
+    /**
+     * Push a newly saved activity into the author's and followers' timelines.
+     * Runs after the surrounding transaction commits (or immediately if there is none).
+     */
+    public void publish(ActivityFeed activity) {
+        Long activityId = activity.getId();
+        Long authorId = activity.getUser().getId();
+        AfterCommit.run(() -> fanOut(activityId, authorId));
+    }
+
+    /**
+     * Drop a user's timeline after their follow graph changed.
+     */
+    public void invalidate(Long userId) {
+        AfterCommit.run(() -> {
+            synchronized (timelines) {
+                timelines.remove(userId);
+            }
+        });
+    }
+
+    void fanOut(long activityId, long authorId) {
+        push(authorId, activityId, authorId);
+
+        if (pullAuthors.contains(authorId)) {
+            pullWrites.incrementAndGet();
+            return;
+        }
+
+        long followers = userFollowRepository.countByFollowingId(authorId);
+        if (followers > maxFanOutFollowers) {
+            pullAuthors.add(authorId);
+            pullWrites.incrementAndGet();
+            log.info("User {} has {} followers; switching their activities to pull mode", authorId, followers);
+            return;
+        }
+
+        for (Long followerId : userFollowRepository.findFollowerIds(authorId)) {
+            push(followerId, activityId, authorId);
+        }
+    }
+
+    private void push(long ownerId, long activityId, long authorId) {
+        Timeline timeline;
+        synchronized (timelines) {
+            timeline = timelines.get(ownerId);
+        }
+        // Cold timelines are not materialized here; they are built from the database on read
+        if (timeline != null) {
+            timeline.push(activityId, authorId);
+        }
+    }
+
+    // ============================================
+    // READ PATH
+    // ============================================
+
+    /**
+     * Read one page of a user's home timeline.
+     *
+     * @param includeOwn true for the combined feed, false for the following-only feed
+     * @return the page, or empty if it reaches past what is kept in memory (caller should query the database)
+     */
+    public Optional<Page<ActivityFeed>> readFeed(Long userId, Pageable pageable, boolean includeOwn) {
+        long offset = pageable.getOffset();
+        if (offset + pageable.getPageSize() > capacity) {
+            return Optional.empty();
+        }
+        int end = (int) offset + pageable.getPageSize();
+
+        Timeline timeline = getOrBuild(userId);
+        TimelineView view = timeline.view(includeOwn);
+
+        List<Long> pulledAuthorIds = pullAuthorsFollowedBy(timeline);
+        List<ActivityFeed> pulledContent = pulledAuthorIds.isEmpty()
+                ? List.of()
+                : activityFeedRepository.findByUserIdInAndIdGreaterThanOrderByIdDesc(
+                        pulledAuthorIds, timeline.watermark(), PageRequest.of(0, end));
+
+        // Merge the two newest-first id sequences
+        List<Long> merged = new ArrayList<>(end);
+        int i = 0;
+        int j = 0;
+        while (merged.size() < end && (i < view.ids().length || j < pulledContent.size())) {
+            long pushedId = i < view.ids().length ? view.ids()[i] : Long.MIN_VALUE;
+            long pulledId = j < pulledContent.size() ? pulledContent.get(j).getId() : Long.MIN_VALUE;
+            if (pushedId == pulledId) {
+                merged.add(pushedId);
+                i++;
+                j++;
+            } else if (pushedId > pulledId) {
+                merged.add(pushedId);
+                i++;
+            } else {
+                merged.add(pulledId);
+                j++;
+            }
+        }
+
+        // Older entries were trimmed from memory; only the database can answer this page
+        if (view.truncated() && i >= view.ids().length) {
+            return Optional.empty();
+        }
+
+        List<Long> pageIds = offset < merged.size() ? merged.subList((int) offset, merged.size()) : List.of();
+        return Optional.of(new PageImpl<>(loadInOrder(pageIds, pulledContent), pageable,
+                view.total() + pulledTotal(timeline, pulledAuthorIds, pulledContent.size(), end)));
+    }
+
+    private Timeline getOrBuild(Long userId) {
+        Timeline timeline;
+        synchronized (timelines) {
+            timeline = timelines.computeIfAbsent(userId, id -> new Timeline(id, capacity));
+        }
+        timeline.ensureLoaded(this::loadTimeline);
+        return timeline;
+    }
+
+    private void loadTimeline(Timeline timeline) {
+        long ownerId = timeline.ownerId;
+        List<Object[]> entries = activityFeedRepository.findCombinedFeedEntries(ownerId, PageRequest.of(0, capacity));
+        long combinedTotal = entries.size() < capacity
+                ? entries.size()
+                : activityFeedRepository.countCombinedFeed(ownerId);
+        long ownTotal = activityFeedRepository.countByUserId(ownerId);
+        timeline.seed(entries, combinedTotal, ownTotal);
+    }
+
+    private List<Long> pullAuthorsFollowedBy(Timeline timeline) {
+        // pullAuthors only grows, so its size tells whether the cached list is current
+        int known = pullAuthors.size();
+        if (known == 0) {
+            return List.of();
+        }
+        List<Long> cached = timeline.pullAuthorIds(known);
+        if (cached != null) {
+            return cached;
+        }
+        List<Long> ids = userFollowRepository.findFollowingIds(timeline.ownerId).stream()
+                .filter(pullAuthors::contains)
+                .toList();
+        timeline.cachePullAuthorIds(known, ids);
+        return ids;
+    }
+
+    private long pulledTotal(Timeline timeline, List<Long> authorIds, int loaded, int limit) {
+        if (loaded < limit) {
+            return loaded;
+        }
+        long writes = pullWrites.get();
+        long cached = timeline.pulledTotal(writes);
+        if (cached >= 0) {
+            return cached;
+        }
+        long total = activityFeedRepository.countByUserIdInAndIdGreaterThan(authorIds, timeline.watermark());
+        timeline.cachePulledTotal(writes, total);
+        return total;
+    }
+
+    private List<ActivityFeed> loadInOrder(List<Long> ids, List<ActivityFeed> alreadyLoaded) {
+        Map<Long, ActivityFeed> byId = new HashMap<>();
+        for (ActivityFeed activity : alreadyLoaded) {
+            byId.put(activity.getId(), activity);
+        }
+        List<Long> missing = ids.stream().filter(id -> !byId.containsKey(id)).toList();
+        for (ActivityFeed activity : activityFeedRepository.findAllById(missing)) {
+            byId.put(activity.getId(), activity);
+        }
+
+        // Ids whose rows are gone (deleted, rolled back) are skipped
+        List<ActivityFeed> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ActivityFeed activity = byId.get(id);
+            if (activity != null) {
+                result.add(activity);
+            }
+        }
+        return result;
+    }
+
+    // ============================================
+    // TIMELINE STORAGE
+    // ============================================
+
+    private record TimelineView(long[] ids, long total, boolean truncated) {
+    }
+
+    /**
+     * Capped, newest-first ring of activity ids with their authors, kept in parallel primitive arrays.
+     */
+    private static final class Timeline {
+        private final long ownerId;
+        private final long[] ids;
+        private final long[] authors;
+        private int size;
+        private long combinedTotal;
+        private long ownTotal;
+        private long watermark;
+        private boolean loaded;
+        // Followed pull-mode authors, as of pullAuthors having pullAuthorsSeen entries
+        private List<Long> pullAuthorIds;
+        private int pullAuthorsSeen;
+        // Count of their activities above the watermark, as of pullWrites reaching pulledTotalWrites
+        private long pulledTotal = -1;
+        private long pulledTotalWrites;
+
+        Timeline(long ownerId, int capacity) {
+            this.ownerId = ownerId;
+            this.ids = new long[capacity];
+            this.authors = new long[capacity];
+        }
+
+        synchronized void ensureLoaded(Consumer<Timeline> loader) {
+            if (!loaded) {
+                loader.accept(this);
+                loaded = true;
+            }
+        }
+
+        synchronized void seed(List<Object[]> entries, long combinedTotal, long ownTotal) {
+            for (Object[] entry : entries) {
+                insert(((Number) entry[0]).longValue(), ((Number) entry[1]).longValue());
+            }
+            this.combinedTotal = combinedTotal;
+            this.ownTotal = ownTotal;
+            this.watermark = size > 0 ? ids[0] : 0L;
+        }
+
+        synchronized void push(long activityId, long authorId) {
+            if (insert(activityId, authorId)) {
+                combinedTotal++;
+                if (authorId == ownerId) {
+                    ownTotal++;
+                }
+            }
+        }
+
+        synchronized long watermark() {
+            return watermark;
+        }
+
+        synchronized List<Long> pullAuthorIds(int pullAuthorsSize) {
+            return pullAuthorsSeen == pullAuthorsSize ? pullAuthorIds : null;
+        }
+
+        synchronized void cachePullAuthorIds(int pullAuthorsSize, List<Long> authorIds) {
+            this.pullAuthorIds = authorIds;
+            this.pullAuthorsSeen = pullAuthorsSize;
+        }
+
+        /**
+         * Cached pulled count, or -1 if a pull-mode author has published since it was taken.
+         */
+        synchronized long pulledTotal(long pullWrites) {
+            return pulledTotalWrites == pullWrites ? pulledTotal : -1;
+        }
+
+        synchronized void cachePulledTotal(long pullWrites, long total) {
+            this.pulledTotal = total;
+            this.pulledTotalWrites = pullWrites;
+        }
+
+        synchronized TimelineView view(boolean includeOwn) {
+            long[] visible = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (includeOwn || authors[i] != ownerId) {
+                    visible[count++] = ids[i];
+                }
+            }
+            long total = includeOwn ? combinedTotal : combinedTotal - ownTotal;
+            return new TimelineView(Arrays.copyOf(visible, count), total, total > count);
+        }
+
+        /**
+         * Insert keeping newest-first order; the oldest entry falls off when full.
+         * Returns false if the id is already present.
+         */
+        private boolean insert(long activityId, long authorId) {
+            int pos = 0;
+            while (pos < size && ids[pos] > activityId) {
+                pos++;
+            }
+            if (pos < size && ids[pos] == activityId) {
+                return false;
+            }
+            if (pos >= ids.length) {
+                return true; // older than everything in a full timeline
+            }
+            int keep = Math.min(size, ids.length - 1);
+            System.arraycopy(ids, pos, ids, pos + 1, keep - pos);
+            System.arraycopy(authors, pos, authors, pos + 1, keep - pos);
+            ids[pos] = activityId;
+            authors[pos] = authorId;
+            size = keep + 1;
+            return true;
+        }
+    }
+}
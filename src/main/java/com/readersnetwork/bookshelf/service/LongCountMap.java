@@ -0,0 +1,174 @@
+package com.readersnetwork.bookshelf.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long keys to long counts.
+ * Used by the in-memory counters so hot paths neither box keys nor allocate per entry.
+ *
+ * Not thread-safe: callers synchronize externally.
+ */
+final class LongCountMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+
+    LongCountMap() {
+        this(16);
+    }
+
+    LongCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Add delta to the count of key. Entries whose count drops to zero or below are removed.
+     *
+     * @return the new count
+     */
+    long add(long key, long delta) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            long updated = counts[slot] + delta;
+            if (updated <= 0) {
+                removeAt(slot);
+                return 0;
+            }
+            counts[slot] = updated;
+            return updated;
+        }
+        if (delta <= 0) {
+            return 0;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return delta;
+    }
+
+    /**
+     * Set the count of key; a count of zero or below removes it.
+     */
+    void put(long key, long count) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            if (count <= 0) {
+                removeAt(slot);
+            } else {
+                counts[slot] = count;
+            }
+            return;
+        }
+        if (count > 0) {
+            keys[slot] = key;
+            counts[slot] = count;
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+        }
+    }
+
+    void remove(long key) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            removeAt(slot);
+        }
+    }
+
+    long get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? counts[slot] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    void forEach(Entry consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Entry {
+        void accept(long key, long count);
+    }
+
+    // ============================================
+    // PRIVATE HELPERS
+    // ============================================
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Backward-shift deletion keeps probe chains intact without tombstones.
+     */
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            boolean movable = hole <= next
+                    ? (home <= hole || home > next)
+                    : (home <= hole && home > next);
+            if (movable) {
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                size++;
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
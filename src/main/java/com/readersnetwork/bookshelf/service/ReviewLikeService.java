@@ -28,6 +28,7 @@ public class ReviewLikeService {
     private final ReviewLikeRepository reviewLikeRepository;
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
+    private final ActivityIngestionPipeline activityIngestionPipeline;
 
     // ============= LIKE OPERATIONS =============
 
@@ -63,6 +64,9 @@ public class ReviewLikeService {
         review.setLikeCount(review.getLikeCount() + 1);
         reviewRepository.save(review);
 
+        activityIngestionPipeline.publish(
+                ActivityEvent.likedReview(userId, reviewId, review.getBook().getId()));
+
         return convertToResponse(savedLike);
     }
 
@@ -36,6 +36,8 @@ public class ReviewService {
 
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
+    private final ActivityIngestionPipeline activityIngestionPipeline;
+    private final BookSearchIndex bookSearchIndex;
 
     // ============= REVIEW OPERATIONS =============
 
@@ -65,7 +67,12 @@ public class ReviewService {
                 .likeCount(0)
                 .build();
 
-        return convertToResponse(reviewRepository.save(review));
+        Review saved = reviewRepository.save(review);
+        activityIngestionPipeline.publish(
+                ActivityEvent.postedReview(userId, saved.getId(), bookId, saved.getRating()));
+        bookSearchIndex.reviewChangedAfterCommit(bookId, 1, saved.getRating());
+
+        return convertToResponse(saved);
     }
 
     @Transactional
@@ -77,6 +84,7 @@ public class ReviewService {
             throw new UnauthorizedAccessException("You can only update your own reviews");
         }
 
+        int previousRating = review.getRating();
         if (request.getRating() != null) {
             review.setRating(request.getRating());
         }
@@ -91,6 +99,10 @@ public class ReviewService {
         }
 
         Review updated = reviewRepository.save(review);
+        if (updated.getRating() != previousRating) {
+            bookSearchIndex.reviewChangedAfterCommit(updated.getBook().getId(), 0,
+                    updated.getRating() - previousRating);
+        }
         return convertToResponse(updated);
     }
 
@@ -104,6 +116,7 @@ public class ReviewService {
         }
 
         reviewRepository.delete(review);
+        bookSearchIndex.reviewChangedAfterCommit(review.getBook().getId(), -1, -review.getRating());
     }
 
     public ReviewResponse getReviewById(@NonNull Long reviewId) {
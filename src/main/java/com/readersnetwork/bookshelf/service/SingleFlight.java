@@ -0,0 +1,70 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.exception.ServiceUnavailableException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one execution.
+ *
+ * - The first caller runs the loader on its own thread; callers arriving while it runs wait for
+ *   its outcome (value or exception) instead of running the loader again
+ * - Waiters give up after a timeout with ServiceUnavailableException; the leader is not interrupted
+ * - Nothing is cached: once the leader finishes, the next call for the key runs the loader again
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /** Outcome of one call: the value and whether it came from another caller's execution. */
+    record Result<V>(V value, boolean shared) {
+    }
+
+    Result<V> execute(K key, long timeoutMs, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+        if (leader == null) {
+            try {
+                V value = loader.get();
+                mine.complete(value);
+                return new Result<>(value, false);
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+        return new Result<>(await(leader, timeoutMs), true);
+    }
+
+    int size() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> leader, long timeoutMs) {
+        try {
+            return leader.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Same exception as the leader saw, so every caller gets the same response
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Timed out waiting for an identical request in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for an identical request in progress");
+        }
+    }
+}
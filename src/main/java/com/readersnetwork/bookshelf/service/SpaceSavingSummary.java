@@ -0,0 +1,121 @@
+package com.readersnetwork.bookshelf.service;
+
+/**
+ * Space-Saving heavy-hitters summary (Metwally et al.) with a fixed number of counters.
+ *
+ * - Tracked keys are kept in an indexed min-heap on their counts
+ * - A new key replaces the current minimum and inherits its count as error bound
+ * - Any key seen more than (total / capacity) times is guaranteed to be tracked;
+ *   estimates never undercount and overcount by at most the inherited error
+ *
+ * Not thread-safe: callers synchronize externally.
+ */
+final class SpaceSavingSummary {
+
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final LongCountMap positions; // key -> heap index + 1
+    private int size;
+
+    SpaceSavingSummary(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        positions = new LongCountMap(capacity);
+    }
+
+    void offer(long key) {
+        long position = positions.get(key);
+        if (position > 0) {
+            int index = (int) position - 1;
+            counts[index]++;
+            siftDown(index);
+            return;
+        }
+
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = 1;
+            errors[size] = 0;
+            positions.put(key, size + 1);
+            siftUp(size++);
+            return;
+        }
+
+        // Replace the smallest counter
+        positions.remove(keys[0]);
+        keys[0] = key;
+        errors[0] = counts[0];
+        counts[0]++;
+        positions.put(key, 1);
+        siftDown(0);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions.remove(keys[i]);
+        }
+        size = 0;
+    }
+
+    void forEach(Counter consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(keys[i], counts[i], errors[i]);
+        }
+    }
+
+    @FunctionalInterface
+    interface Counter {
+        void accept(long key, long count, long error);
+    }
+
+    // ============================================
+    // INDEXED MIN-HEAP
+    // ============================================
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (counts[parent] <= counts[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int smallest = right < size && counts[right] < counts[left] ? right : left;
+            if (counts[index] <= counts[smallest]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        long count = counts[a];
+        long error = errors[a];
+        keys[a] = keys[b];
+        counts[a] = counts[b];
+        errors[a] = errors[b];
+        keys[b] = key;
+        counts[b] = count;
+        errors[b] = error;
+        positions.put(keys[a], a + 1);
+        positions.put(keys[b], b + 1);
+    }
+}
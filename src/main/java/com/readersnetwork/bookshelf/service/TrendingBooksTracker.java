@@ -0,0 +1,150 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.repository.ActivityFeedRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sliding-window activity counter behind "trending books".
+ *
+ * Strategy:
+ * - Time is cut into hourly buckets kept in a ring covering the window (default 7 days)
+ * - Each book-related activity increments its book in the current bucket and in a running total
+ * - When a bucket falls out of the window its counts are subtracted from the totals and it is reused
+ * - Top-K is a bounded min-heap over the running totals (no database access)
+ * - Rebuilt from the typed book_id column of activity_feed once at startup
+ */
+@Component
+@DependsOn("activityMetadataBackfill")
+@RequiredArgsConstructor
+@Slf4j
+public class TrendingBooksTracker {
+
+    private final ActivityFeedRepository activityFeedRepository;
+
+    @Value("${bookshelf.trending.window-hours:168}")
+    private int windowHours;
+
+    private LongCountMap[] buckets;
+    private long[] bucketHours;
+    private final LongCountMap totals = new LongCountMap(1024);
+    private long lastExpiredHour = Long.MIN_VALUE;
+
+    public record BookCount(long bookId, long count) {
+    }
+
+    // Most active first, ties broken by book id
+    private static final Comparator<BookCount> RANKING = Comparator
+            .comparingLong(BookCount::count).reversed()
+            .thenComparingLong(BookCount::bookId);
+
+    @PostConstruct
+    void rebuild() {
+        buckets = new LongCountMap[windowHours];
+        bucketHours = new long[windowHours];
+        for (int i = 0; i < windowHours; i++) {
+            buckets[i] = new LongCountMap();
+            bucketHours[i] = Long.MIN_VALUE;
+        }
+
+        LocalDateTime since = LocalDateTime.now().minusHours(windowHours);
+        int signals = 0;
+        for (Object[] row : activityFeedRepository.findBookSignalsSince(since)) {
+            record((Long) row[0], (LocalDateTime) row[1]);
+            signals++;
+        }
+        log.info("Trending tracker rebuilt from {} activities ({} books in a {}h window)",
+                signals, totals.size(), windowHours);
+    }
+
+    // ============================================
+    // PUBLIC API
+    // ============================================
+
+    /**
+     * Count one activity for a book at the given time.
+     */
+    public synchronized void record(long bookId, LocalDateTime at) {
+        long now = currentHour();
+        long hour = at != null ? Math.min(epochHour(at), now) : now;
+        if (hour <= now - windowHours) {
+            return; // already outside the window
+        }
+
+        int slot = (int) Math.floorMod(hour, (long) windowHours);
+        if (bucketHours[slot] != hour) {
+            evict(slot);
+            bucketHours[slot] = hour;
+        }
+        buckets[slot].add(bookId, 1);
+        totals.add(bookId, 1);
+    }
+
+    /**
+     * Books with the most activity in the window, most active first.
+     */
+    public synchronized List<BookCount> topBooks(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        expire(currentHour());
+
+        PriorityQueue<BookCount> heap = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        totals.forEach((bookId, count) -> {
+            if (heap.size() < limit) {
+                heap.add(new BookCount(bookId, count));
+            } else if (count > heap.peek().count()) {
+                heap.poll();
+                heap.add(new BookCount(bookId, count));
+            }
+        });
+
+        List<BookCount> result = new ArrayList<>(heap);
+        result.sort(RANKING);
+        return result;
+    }
+
+    // ============================================
+    // PRIVATE HELPERS
+    // ============================================
+
+    private void expire(long now) {
+        if (now == lastExpiredHour) {
+            return;
+        }
+        for (int slot = 0; slot < windowHours; slot++) {
+            if (bucketHours[slot] != Long.MIN_VALUE && bucketHours[slot] <= now - windowHours) {
+                evict(slot);
+            }
+        }
+        lastExpiredHour = now;
+    }
+
+    private void evict(int slot) {
+        LongCountMap bucket = buckets[slot];
+        if (!bucket.isEmpty()) {
+            bucket.forEach((bookId, count) -> totals.add(bookId, -count));
+            bucket.clear();
+        }
+        bucketHours[slot] = Long.MIN_VALUE;
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / 3_600_000L;
+    }
+
+    private static long epochHour(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / 3_600L;
+    }
+}
@@ -29,6 +29,10 @@ public class UserFollowService {
 
     private final UserFollowRepository userFollowRepository;
     private final UserRepository userRepository;
+    private final HomeTimelineStore homeTimelineStore;
+    private final ActivityIngestionPipeline activityIngestionPipeline;
+    private final ActivityStreamBroker activityStreamBroker;
+    private final FollowingCache followingCache;
 
     /**
      * Follow a user
@@ -61,6 +65,10 @@ public class UserFollowService {
                 .build();
 
         UserFollow savedFollow = userFollowRepository.save(Objects.requireNonNull(userFollow));
+        homeTimelineStore.invalidate(followerId);
+        followingCache.invalidate(followerId);
+        activityStreamBroker.refreshFollows(followerId);
+        activityIngestionPipeline.publish(ActivityEvent.followedUser(followerId, requestDTO.getFollowingId()));
         log.info("User {} successfully followed user {}", followerId, requestDTO.getFollowingId());
 
         return mapToResponseDTO(savedFollow);
@@ -78,6 +86,9 @@ public class UserFollowService {
         }
 
         userFollowRepository.deleteByFollowerIdAndFollowingId(followerId, followingId);
+        homeTimelineStore.invalidate(followerId);
+        followingCache.invalidate(followerId);
+        activityStreamBroker.refreshFollows(followerId);
         log.info("User {} successfully unfollowed user {}", followerId, followingId);
     }
 
@@ -0,0 +1,301 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.dto.response.MentionSuggestion;
+import com.readersnetwork.bookshelf.entity.User;
+import com.readersnetwork.bookshelf.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index over usernames and display names for user search and @mention autocomplete.
+ *
+ * Strategy:
+ * - Usernames, display names and each display-name word are keys of one sorted map, so a prefix
+ *   is a range scan; queries of 3+ characters also match inside names through a trigram map
+ * - Results are bounded and ranked: exact username, username prefix, display-name prefix,
+ *   then substring; within a tier, boosted users (e.g. people the searcher follows) first,
+ *   then shorter usernames. Boosted users are checked directly, so a bounded prefix scan
+ *   of a short, common prefix never leaves them out
+ * - Loaded from the database in the background at startup, and kept current by the user services
+ *   after each commit (also during the load)
+ * - Until the load finishes, user search falls back to the SQL query; mention suggestions come
+ *   from the users loaded so far
+ */
+@Component
+@Slf4j
+public class UserSearchIndex {
+
+    /** Upper bound on ranked matches for one query. */
+    public static final int MAX_MATCHES = 200;
+
+    private static final int MAX_PREFIX_SCAN = 5 * MAX_MATCHES;
+    private static final int SUBSTRING_MIN_LENGTH = 3;
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private static final int TIER_EXACT = 0;
+    private static final int TIER_USERNAME_PREFIX = 1;
+    private static final int TIER_NAME_PREFIX = 2;
+    private static final int TIER_SUBSTRING = 3;
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, Entry> users = new ConcurrentHashMap<>();
+    /** "key\0id" for every username, display name and display-name word. */
+    private final ConcurrentSkipListMap<String, Long> prefixes = new ConcurrentSkipListMap<>();
+    /** Trigram -> ids of users whose username or display name contains it. */
+    private final Map<String, Set<Long>> trigrams = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    /** One indexed user; the keys are lower-cased (and accent-free for display names). */
+    private record Entry(long id, String username, String displayName, String avatarUrl,
+            String usernameKey, String displayNameKey) {
+    }
+
+    private record Match(Entry entry, int tier, boolean boosted) {
+    }
+
+    public UserSearchIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Load the index in the background so startup does not wait for a scan of the users table.
+     */
+    @PostConstruct
+    void init() {
+        Thread loader = new Thread(this::load, "user-search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() {
+        try {
+            Pageable pageable = PageRequest.of(0, LOAD_PAGE_SIZE, Sort.by("id"));
+            Page<User> page;
+            do {
+                page = userRepository.findAll(pageable);
+                page.getContent().forEach(user -> putIfAbsent(toEntry(user)));
+                pageable = page.nextPageable();
+            } while (page.hasNext());
+            ready = true;
+            log.info("User search index built: {} users, {} keys", users.size(), prefixes.size());
+        } catch (RuntimeException e) {
+            log.error("User search index load failed; user search stays on SQL", e);
+        }
+    }
+
+    // ============================================
+    // QUERIES
+    // ============================================
+
+    /**
+     * Ids of users whose username or display name starts with (or, for 3+ characters, contains)
+     * the query, best matches first.
+     *
+     * @return at most limit ids, or empty if the index is not loaded yet
+     */
+    public Optional<List<Long>> search(String query, Set<Long> boosted, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        return Optional.of(match(query, boosted, limit, true).stream()
+                .map(m -> m.entry().id())
+                .toList());
+    }
+
+    /**
+     * Users to offer while typing "@prefix": prefix matches only, boosted users first.
+     */
+    public List<MentionSuggestion> mentions(String prefix, Set<Long> boosted, Long excludeUserId, int limit) {
+        return match(prefix, boosted, limit + 1, false).stream()
+                .map(Match::entry)
+                .filter(entry -> excludeUserId == null || entry.id() != excludeUserId)
+                .limit(limit)
+                .map(entry -> MentionSuggestion.builder()
+                        .id(entry.id())
+                        .username(entry.username())
+                        .displayName(entry.displayName())
+                        .avatarUrl(entry.avatarUrl())
+                        .build())
+                .toList();
+    }
+
+    // ============================================
+    // MAINTENANCE
+    // ============================================
+
+    /**
+     * (Re)index a registered or updated user once the surrounding transaction commits.
+     */
+    public void indexAfterCommit(User user) {
+        Entry entry = toEntry(user);
+        AfterCommit.run(() -> put(entry));
+    }
+
+    /** Loaded row; a user indexed after a commit meanwhile is at least as recent, so it is kept. */
+    private synchronized void putIfAbsent(Entry entry) {
+        if (!users.containsKey(entry.id())) {
+            put(entry);
+        }
+    }
+
+    private synchronized void put(Entry entry) {
+        Entry previous = users.put(entry.id(), entry);
+        if (previous != null) {
+            for (String key : keysOf(previous)) {
+                prefixes.remove(key + '\u0000' + previous.id());
+            }
+            for (String trigram : trigramsOf(previous)) {
+                Set<Long> ids = trigrams.get(trigram);
+                if (ids != null && ids.remove(previous.id()) && ids.isEmpty()) {
+                    trigrams.remove(trigram);
+                }
+            }
+        }
+        for (String key : keysOf(entry)) {
+            prefixes.put(key + '\u0000' + entry.id(), entry.id());
+        }
+        for (String trigram : trigramsOf(entry)) {
+            trigrams.computeIfAbsent(trigram, t -> ConcurrentHashMap.newKeySet()).add(entry.id());
+        }
+    }
+
+    // ============================================
+    // MATCHING
+    // ============================================
+
+    private List<Match> match(String query, Set<Long> boosted, int limit, boolean substrings) {
+        String raw = query.trim().startsWith("@") ? query.trim().substring(1) : query.trim();
+        // Usernames are matched verbatim (underscores, dots); display names word by word
+        String usernameKey = raw.toLowerCase();
+        String nameKey = normalize(raw);
+        if (usernameKey.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        Map<Long, Match> matches = new HashMap<>();
+        Set<String> queryKeys = new LinkedHashSet<>(List.of(usernameKey, nameKey));
+        queryKeys.remove("");
+        for (Long id : boosted) {
+            Entry entry = users.get(id);
+            if (entry != null && keysOf(entry).stream().anyMatch(k -> queryKeys.stream().anyMatch(k::startsWith))) {
+                matches.put(id, new Match(entry, prefixTier(entry, usernameKey), true));
+            }
+        }
+        for (String key : queryKeys) {
+            int scanned = 0;
+            for (Long id : prefixes.subMap(key, key + Character.MAX_VALUE).values()) {
+                if (scanned++ == MAX_PREFIX_SCAN) {
+                    break;
+                }
+                Entry entry = users.get(id);
+                if (entry != null) {
+                    matches.merge(id, new Match(entry, prefixTier(entry, usernameKey), boosted.contains(id)),
+                            (a, b) -> a.tier() <= b.tier() ? a : b);
+                }
+            }
+        }
+
+        if (substrings && usernameKey.length() >= SUBSTRING_MIN_LENGTH && matches.size() < MAX_MATCHES) {
+            Set<Long> candidates = substringCandidates(usernameKey);
+            if (nameKey.length() >= SUBSTRING_MIN_LENGTH && !nameKey.equals(usernameKey)) {
+                candidates.addAll(substringCandidates(nameKey));
+            }
+            for (Long id : candidates) {
+                Entry entry = users.get(id);
+                if (entry != null && !matches.containsKey(id)
+                        && (entry.usernameKey().contains(usernameKey) || entry.displayNameKey().contains(nameKey))) {
+                    matches.put(id, new Match(entry, TIER_SUBSTRING, boosted.contains(id)));
+                }
+            }
+        }
+
+        return matches.values().stream()
+                .sorted(Comparator.comparingInt(Match::tier)
+                        .thenComparing(Match::boosted, Comparator.reverseOrder())
+                        .thenComparingInt(m -> m.entry().username().length())
+                        .thenComparing(m -> m.entry().usernameKey()))
+                .limit(Math.min(limit, MAX_MATCHES))
+                .toList();
+    }
+
+    private static int prefixTier(Entry entry, String usernameKey) {
+        return entry.usernameKey().equals(usernameKey) ? TIER_EXACT
+                : entry.usernameKey().startsWith(usernameKey) ? TIER_USERNAME_PREFIX
+                : TIER_NAME_PREFIX;
+    }
+
+    /** Ids present in the posting of every trigram of the key (smallest posting first). */
+    private Set<Long> substringCandidates(String key) {
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String trigram : trigramsOf(key)) {
+            Set<Long> ids = trigrams.get(trigram);
+            if (ids == null) {
+                return new LinkedHashSet<>();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> candidates = new LinkedHashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        return candidates;
+    }
+
+    // ============================================
+    // HELPER METHODS
+    // ============================================
+
+    private static Entry toEntry(User user) {
+        String displayName = user.getDisplayName() != null ? user.getDisplayName() : user.getUsername();
+        return new Entry(user.getId(), user.getUsername(), displayName, user.getAvatarUrl(),
+                user.getUsername().toLowerCase(), normalize(displayName));
+    }
+
+    /** Lower-cased, accent-free words joined by single spaces. */
+    private static String normalize(String text) {
+        return String.join(" ", BookSearchIndex.tokenize(text));
+    }
+
+    private static Set<String> keysOf(Entry entry) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(entry.usernameKey());
+        if (!entry.displayNameKey().isEmpty()) {
+            keys.add(entry.displayNameKey());
+            keys.addAll(BookSearchIndex.tokenize(entry.displayNameKey()));
+        }
+        return keys;
+    }
+
+    private static Set<String> trigramsOf(Entry entry) {
+        Set<String> result = trigramsOf(entry.usernameKey());
+        result.addAll(trigramsOf(entry.displayNameKey()));
+        return result;
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(text.substring(i, i + 3));
+        }
+        return result;
+    }
+}
@@ -1,11 +1,13 @@
 package com.readersnetwork.bookshelf.service;
 
+import com.readersnetwork.bookshelf.dto.response.MentionSuggestion;
 import com.readersnetwork.bookshelf.entity.User;
 import com.readersnetwork.bookshelf.entity.UserFollow;
 import com.readersnetwork.bookshelf.repository.UserRepository;
 import com.readersnetwork.bookshelf.repository.UserFollowRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,8 +19,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class UserService implements UserDetailsService {
@@ -32,6 +38,21 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private HomeTimelineStore homeTimelineStore;
+
+    @Autowired
+    private ActivityStreamBroker activityStreamBroker;
+
+    @Autowired
+    private ActivityIngestionPipeline activityIngestionPipeline;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private FollowingCache followingCache;
+
     // ============================================
     // SPRING SECURITY - UserDetailsService
     // ============================================
@@ -85,7 +106,9 @@ public class UserService implements UserDetailsService {
                 .displayName(displayName != null ? displayName : username)
                 .build();
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userSearchIndex.indexAfterCommit(saved);
+        return saved;
     }
 
     /**
@@ -129,7 +152,9 @@ public class UserService implements UserDetailsService {
             user.setAvatarUrl(avatarUrl);
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userSearchIndex.indexAfterCommit(saved);
+        return saved;
     }
 
     /**
@@ -161,9 +186,35 @@ public class UserService implements UserDetailsService {
 
     /**
      * Search users by username or display name
+     * Served by the in-memory user index (bounded, best matches first); SQL until it is loaded
      */
     public Page<User> searchUsers(String query, Pageable pageable) {
-        return userRepository.searchUsers(query, pageable);
+        return userSearchIndex.search(query, Collections.emptySet(), UserSearchIndex.MAX_MATCHES)
+                .map(ids -> toPage(ids, pageable))
+                .orElseGet(() -> userRepository.searchUsers(query, pageable));
+    }
+
+    /**
+     * Users to suggest while typing an @mention (people the current user follows first)
+     */
+    public List<MentionSuggestion> suggestMentions(Long currentUserId, String prefix, int limit) {
+        Set<Long> following = currentUserId != null
+                ? followingCache.followingIds(currentUserId)
+                : Collections.emptySet();
+        return userSearchIndex.mentions(prefix, following, currentUserId, limit);
+    }
+
+    /**
+     * Load one page of ranked user ids, keeping their order
+     */
+    private Page<User> toPage(List<Long> ids, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+        Map<Long, User> byId = new HashMap<>();
+        userRepository.findAllById(pageIds).forEach(user -> byId.put(user.getId(), user));
+        List<User> users = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(users, pageable, ids.size());
     }
 
     // ============================================
@@ -172,7 +223,7 @@ public class UserService implements UserDetailsService {
 
     /**
      * Follow a user
-     * Creates UserFollow relationship
+     * Creates UserFollow relationship and a FOLLOWED_USER activity
      */
     @Transactional
     @SuppressWarnings("null")
@@ -197,7 +248,12 @@ public class UserService implements UserDetailsService {
                 .following(following)
                 .build();
 
-        return userFollowRepository.save(userFollow);
+        UserFollow saved = userFollowRepository.save(userFollow);
+        homeTimelineStore.invalidate(followerId);
+        followingCache.invalidate(followerId);
+        activityStreamBroker.refreshFollows(followerId);
+        activityIngestionPipeline.publish(ActivityEvent.followedUser(followerId, followingId));
+        return saved;
     }
 
     /**
@@ -210,6 +266,9 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("Not following this user"));
 
         userFollowRepository.delete(follow);
+        homeTimelineStore.invalidate(followerId);
+        followingCache.invalidate(followerId);
+        activityStreamBroker.refreshFollows(followerId);
     }
 
     /**
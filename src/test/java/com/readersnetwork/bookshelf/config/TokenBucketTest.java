@@ -0,0 +1,71 @@
+package com.readersnetwork.bookshelf.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void burstDoesNotRaiseTheRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 5);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 15; i++) {
+            bucket.acquire();
+        }
+
+        // 5 from the burst, the other 10 at 20/s
+        long elapsed = elapsedMillis(started);
+        assertTrue(elapsed >= 480, "15 permits at 20/s with a burst of 5 took " + elapsed + " ms");
+    }
+
+    @Test
+    void acquiresAreSpacedByTheRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(50, 1);
+        bucket.acquire(); // the initial burst
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 25; i++) {
+            bucket.acquire();
+        }
+
+        long elapsed = elapsedMillis(started);
+        assertTrue(elapsed >= 480, "25 permits at 50/s took " + elapsed + " ms");
+    }
+
+    @Test
+    void rateHoldsAcrossThreads() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        bucket.acquire();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        long started = System.nanoTime();
+        for (int i = 0; i < 40; i++) {
+            executor.submit(() -> {
+                bucket.acquire();
+                return null;
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        long elapsed = elapsedMillis(started);
+        assertTrue(elapsed >= 380, "40 permits at 100/s took " + elapsed + " ms");
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0));
+    }
+
+    private static long elapsedMillis(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+}
@@ -0,0 +1,89 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.entity.IdentifierType;
+import com.readersnetwork.bookshelf.service.BookIdentifierIndex.Key;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookIdentifierIndexTest {
+
+    // ============================================
+    // ISBN CANONICALIZATION
+    // ============================================
+
+    @Test
+    void isbn10IsConvertedToIsbn13() {
+        assertEquals("9780306406157", BookIdentifierIndex.canonicalIsbn("0306406152"));
+        assertEquals("9780804429573", BookIdentifierIndex.canonicalIsbn("080442957X"));
+    }
+
+    @Test
+    void separatorsAndCaseAreIgnored() {
+        assertEquals("9780306406157", BookIdentifierIndex.canonicalIsbn("0-306-40615-2"));
+        assertEquals("9780306406157", BookIdentifierIndex.canonicalIsbn(" 978 0 306 40615 7 "));
+        assertEquals("9780804429573", BookIdentifierIndex.canonicalIsbn("0-8044-2957-x"));
+    }
+
+    @Test
+    void bothFormsOfOneEditionGetTheSameKey() {
+        assertEquals(BookIdentifierIndex.isbnKey("978-0-306-40615-7"), BookIdentifierIndex.isbnKey("0306406152"));
+        assertEquals(new Key(IdentifierType.ISBN_13, "9780306406157"), BookIdentifierIndex.isbnKey("0306406152"));
+    }
+
+    @Test
+    void valuesThatAreNotIsbnsFallBackToRawKeys() {
+        assertNull(BookIdentifierIndex.canonicalIsbn("12345"));
+        assertNull(BookIdentifierIndex.canonicalIsbn("9770306406157")); // not a 978/979 prefix
+        assertEquals(new Key(IdentifierType.ISBN_RAW, "B00ABC123"), BookIdentifierIndex.isbnKey("  B00ABC123 "));
+    }
+
+    @Test
+    void missingIsbnHasNoKey() {
+        assertNull(BookIdentifierIndex.canonicalIsbn(null));
+        assertNull(BookIdentifierIndex.isbnKey(null));
+        assertNull(BookIdentifierIndex.isbnKey("   "));
+    }
+
+    // ============================================
+    // FINGERPRINTS
+    // ============================================
+
+    @Test
+    void fingerprintIgnoresCasePunctuationAndAccents() {
+        assertEquals(BookIdentifierIndex.fingerprint("The Hobbit ", "J.R.R. Tolkien"),
+                BookIdentifierIndex.fingerprint("the hobbit", "J. R. R. Tolkien"));
+        assertEquals(BookIdentifierIndex.fingerprint("Cien años de soledad", "Gabriel García Márquez"),
+                BookIdentifierIndex.fingerprint("CIEN ANOS DE SOLEDAD", "gabriel garcia marquez"));
+    }
+
+    @Test
+    void fingerprintKeepsTitleAndAuthorApart() {
+        assertNotEquals(BookIdentifierIndex.fingerprint("Dune", "Frank Herbert"),
+                BookIdentifierIndex.fingerprint("Dune", "Brian Herbert"));
+        assertNotEquals(BookIdentifierIndex.fingerprint("Dune Frank", "Herbert"),
+                BookIdentifierIndex.fingerprint("Dune", "Frank Herbert"));
+    }
+
+    @Test
+    void keysOfListsTheMostSpecificIdentifierFirst() {
+        Book book = new Book();
+        book.setIsbn("0306406152");
+        book.setGoogleBooksId(" zyTCAlFPjgYC ");
+        book.setTitle("The Hobbit");
+        book.setAuthor("J.R.R. Tolkien");
+
+        List<Key> keys = BookIdentifierIndex.keysOf(book);
+
+        assertEquals(List.of(
+                new Key(IdentifierType.ISBN_13, "9780306406157"),
+                new Key(IdentifierType.GOOGLE_BOOKS, "zyTCAlFPjgYC"),
+                new Key(IdentifierType.TITLE_AUTHOR, BookIdentifierIndex.fingerprint("The Hobbit", "J.R.R. Tolkien"))),
+                keys);
+    }
+}
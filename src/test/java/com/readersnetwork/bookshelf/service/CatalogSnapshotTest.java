@@ -0,0 +1,169 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.entity.Book;
+import com.readersnetwork.bookshelf.entity.BookSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private BookBulkLoader bookBulkLoader;
+    private CatalogSnapshot snapshot;
+
+    // Books handed to the bulk loader (copied: the importer reuses its batch list)
+    private final List<Book> ingested = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE books (id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(255), "
+                + "author VARCHAR(255), isbn VARCHAR(13), google_books_id VARCHAR(50), open_library_id VARCHAR(50), "
+                + "cover_url VARCHAR(255), description VARCHAR(2000), published_year INT, genre VARCHAR(100), "
+                + "page_count INT, average_rating DOUBLE, publisher VARCHAR(100), language VARCHAR(50), "
+                + "source VARCHAR(30), is_verified BOOLEAN, created_at TIMESTAMP)");
+
+        bookBulkLoader = mock(BookBulkLoader.class);
+        when(bookBulkLoader.ingest(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            ingested.addAll(books);
+            return new BookBulkLoader.Result(books.size(), 0);
+        });
+
+        snapshot = new CatalogSnapshot(jdbcTemplate, bookBulkLoader);
+        ReflectionTestUtils.setField(snapshot, "path", dir.resolve("catalog.snapshot"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    // ============================================
+    // ROUND TRIP
+    // ============================================
+
+    @Test
+    void exportedBooksAreImportedWithEveryField() {
+        jdbcTemplate.update("INSERT INTO books (title, author, isbn, google_books_id, open_library_id, cover_url, "
+                + "description, published_year, genre, page_count, average_rating, publisher, language, source, "
+                + "is_verified, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                "Cien años de soledad", "Gabriel García Márquez", "9780060883287", "zyTCAlFPjgYC", "OL7353617M",
+                "http://covers/1.jpg", "Multi-generational story", 1967, "Fiction", 417, 4.1, "Harper", "es",
+                "GOOGLE_BOOKS", true, LocalDateTime.of(2024, 3, 1, 12, 30, 15));
+        jdbcTemplate.update("INSERT INTO books (title, author) VALUES (?, ?)", "Untitled draft", "Anonymous");
+
+        Map<String, Object> exported = snapshot.export();
+        Map<String, Object> imported = snapshot.importSnapshot();
+
+        assertEquals(2L, exported.get("books"));
+        assertEquals(2L, imported.get("read"));
+        assertEquals(2, imported.get("saved"));
+        assertEquals(2, ingested.size());
+
+        Book full = ingested.get(0);
+        assertEquals("Cien años de soledad", full.getTitle());
+        assertEquals("Gabriel García Márquez", full.getAuthor());
+        assertEquals("9780060883287", full.getIsbn());
+        assertEquals("zyTCAlFPjgYC", full.getGoogleBooksId());
+        assertEquals("OL7353617M", full.getOpenLibraryId());
+        assertEquals("http://covers/1.jpg", full.getCoverUrl());
+        assertEquals("Multi-generational story", full.getDescription());
+        assertEquals(1967, full.getPublishedYear());
+        assertEquals("Fiction", full.getGenre());
+        assertEquals(417, full.getPageCount());
+        assertEquals(4.1, full.getAverageRating());
+        assertEquals("Harper", full.getPublisher());
+        assertEquals("es", full.getLanguage());
+        assertEquals(BookSource.GOOGLE_BOOKS, full.getSource());
+        assertEquals(Boolean.TRUE, full.getIsVerified());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 12, 30, 15), full.getCreatedAt());
+
+        Book sparse = ingested.get(1);
+        assertEquals("Untitled draft", sparse.getTitle());
+        assertEquals("Anonymous", sparse.getAuthor());
+        assertNull(sparse.getIsbn());
+        assertNull(sparse.getPublishedYear());
+        assertNull(sparse.getAverageRating());
+        assertNull(sparse.getSource());
+        assertNull(sparse.getIsVerified());
+        assertNull(sparse.getCreatedAt());
+    }
+
+    @Test
+    void emptyCatalogRoundTrips() {
+        snapshot.export();
+
+        Map<String, Object> imported = snapshot.importSnapshot();
+
+        assertEquals(0L, imported.get("read"));
+        verifyNoInteractions(bookBulkLoader);
+    }
+
+    // ============================================
+    // DAMAGED FILES
+    // ============================================
+
+    @Test
+    void truncatedSnapshotImportsNothing() throws Exception {
+        for (int i = 0; i < 2000; i++) {
+            jdbcTemplate.update("INSERT INTO books (title, author, description) VALUES (?, ?, ?)",
+                    "Book " + i, "Author " + i, "Description of book number " + i + " ".repeat(i % 50));
+        }
+        snapshot.export();
+        Path file = dir.resolve("catalog.snapshot");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, snapshot::importSnapshot);
+
+        assertTrue(e.getMessage().contains("truncated"), e.getMessage());
+        verifyNoInteractions(bookBulkLoader);
+    }
+
+    @Test
+    void fileThatIsNotASnapshotIsRejected() throws Exception {
+        Path file = dir.resolve("catalog.snapshot");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write("not a snapshot at all".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThrows(IllegalStateException.class, snapshot::importSnapshot);
+        verifyNoInteractions(bookBulkLoader);
+    }
+}
@@ -0,0 +1,147 @@
+package com.readersnetwork.bookshelf.service;
+
+import com.readersnetwork.bookshelf.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waiterSharesTheLeadersValue() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<SingleFlight.Result<String>> leader = executor.submit(() -> singleFlight.execute("q", 5000, () -> {
+            loads.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return "books";
+        }));
+        leaderStarted.await();
+
+        AtomicReference<SingleFlight.Result<String>> shared = new AtomicReference<>();
+        Thread waiter = new Thread(() -> shared.set(singleFlight.execute("q", 5000, () -> {
+            loads.incrementAndGet();
+            return "loaded again";
+        })));
+        waiter.start();
+        awaitParked(waiter);
+        release.countDown();
+        waiter.join(5000);
+
+        assertEquals("books", leader.get(5, TimeUnit.SECONDS).value());
+        assertFalse(leader.get().shared());
+        assertEquals("books", shared.get().value());
+        assertTrue(shared.get().shared());
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void waiterGetsTheLeadersException() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("upstream failed");
+
+        Future<?> leader = executor.submit(() -> singleFlight.execute("q", 5000, () -> {
+            leaderStarted.countDown();
+            await(release);
+            throw failure;
+        }));
+        leaderStarted.await();
+
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                singleFlight.execute("q", 5000, () -> "loaded again");
+            } catch (RuntimeException e) {
+                thrown.set(e);
+            }
+        });
+        waiter.start();
+        awaitParked(waiter);
+        release.countDown();
+        waiter.join(5000);
+
+        Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderFailure.getCause());
+        assertSame(failure, thrown.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void waiterTimesOutWithoutRunningTheLoader() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger waiterLoads = new AtomicInteger();
+
+        Future<SingleFlight.Result<String>> leader = executor.submit(() -> singleFlight.execute("q", 5000, () -> {
+            leaderStarted.countDown();
+            await(release);
+            return "books";
+        }));
+        leaderStarted.await();
+
+        assertThrows(ServiceUnavailableException.class, () -> singleFlight.execute("q", 50, () -> {
+            waiterLoads.incrementAndGet();
+            return "loaded again";
+        }));
+        assertEquals(0, waiterLoads.get());
+
+        // The leader is not interrupted by the waiter giving up
+        release.countDown();
+        assertEquals("books", leader.get(5, TimeUnit.SECONDS).value());
+    }
+
+    @Test
+    void nothingIsCachedOnceTheLeaderFinishes() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("q", 5000, () -> "first " + loads.incrementAndGet());
+        SingleFlight.Result<String> second = singleFlight.execute("q", 5000, () -> "second " + loads.incrementAndGet());
+
+        assertEquals("second 2", second.value());
+        assertFalse(second.shared());
+        assertEquals(0, singleFlight.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Wait until the thread is blocked on the leader's future. */
+    private static void awaitParked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
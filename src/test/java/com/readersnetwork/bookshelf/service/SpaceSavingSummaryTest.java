@@ -0,0 +1,92 @@
+package com.readersnetwork.bookshelf.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingSummaryTest {
+
+    private static final int CAPACITY = 20;
+
+    @Test
+    void exactWhileKeysFitInTheCounters() {
+        SpaceSavingSummary summary = new SpaceSavingSummary(CAPACITY);
+        Map<Long, Long> truth = new HashMap<>();
+        for (long key = 1; key <= CAPACITY; key++) {
+            for (int i = 0; i < key; i++) {
+                summary.offer(key);
+                truth.merge(key, 1L, Long::sum);
+            }
+        }
+
+        Map<Long, long[]> tracked = tracked(summary);
+        assertEquals(truth.size(), tracked.size());
+        truth.forEach((key, count) -> {
+            assertEquals(count, tracked.get(key)[0], "count of " + key);
+            assertEquals(0, tracked.get(key)[1], "error of " + key);
+        });
+    }
+
+    @Test
+    void estimatesStayWithinTheirErrorBounds() {
+        SpaceSavingSummary summary = new SpaceSavingSummary(CAPACITY);
+        Map<Long, Long> truth = new HashMap<>();
+        Random random = new Random(42);
+        int total = 100_000;
+        for (int i = 0; i < total; i++) {
+            // Skewed stream: a few heavy keys over a long tail of 5000 keys
+            long key = random.nextInt(4) == 0 ? random.nextInt(5) : random.nextInt(5000);
+            summary.offer(key);
+            truth.merge(key, 1L, Long::sum);
+        }
+
+        Map<Long, long[]> tracked = tracked(summary);
+        assertEquals(CAPACITY, tracked.size());
+
+        long counted = 0;
+        for (Map.Entry<Long, long[]> entry : tracked.entrySet()) {
+            long actual = truth.get(entry.getKey());
+            long count = entry.getValue()[0];
+            long error = entry.getValue()[1];
+            assertTrue(count >= actual, "never undercounts " + entry.getKey());
+            assertTrue(count - error <= actual, "overcounts by at most the error for " + entry.getKey());
+            assertTrue(error <= total / CAPACITY, "error is bounded by total / capacity");
+            counted += count;
+        }
+        assertEquals(total, counted, "counters add up to the stream length");
+
+        // Every key seen more than total / capacity times must be tracked
+        truth.forEach((key, count) -> {
+            if (count > total / CAPACITY) {
+                assertTrue(tracked.containsKey(key), "heavy hitter " + key + " (" + count + ") is tracked");
+            }
+        });
+    }
+
+    @Test
+    void clearForgetsEveryKey() {
+        SpaceSavingSummary summary = new SpaceSavingSummary(CAPACITY);
+        for (long key = 0; key < 100; key++) {
+            summary.offer(key);
+        }
+
+        summary.clear();
+        summary.offer(7);
+
+        Map<Long, long[]> tracked = tracked(summary);
+        assertEquals(1, tracked.size());
+        assertEquals(1, tracked.get(7L)[0]);
+        assertEquals(0, tracked.get(7L)[1]);
+    }
+
+    private static Map<Long, long[]> tracked(SpaceSavingSummary summary) {
+        Map<Long, long[]> tracked = new HashMap<>();
+        summary.forEach((key, count, error) -> tracked.put(key, new long[] { count, error }));
+        return tracked;
+    }
+}